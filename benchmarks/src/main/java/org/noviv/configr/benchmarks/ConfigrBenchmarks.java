@@ -0,0 +1,27 @@
+package org.noviv.configr.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result comes with its allocation rate. Takes the usual JMH command line options, for example a benchmark name pattern or <code>-p keys=1000</code>.
+ */
+public class ConfigrBenchmarks {
+
+    private ConfigrBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .forks(2)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package org.noviv.configr.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.exceptions.ConfigrIOException;
+
+/**
+ * Generates synthetic configs for the benchmarks. Generated configs only depend on the number of keys and the seed, so runs on different machines or library versions measure the same input.
+ */
+public class ConfigrConfigGenerator {
+
+    private static final long SEED = 0x436F6E666967L;
+
+    private ConfigrConfigGenerator() {
+    }
+
+    /**
+     * Get the name of a generated key. Keys are dotted, like most real configs.
+     *
+     * @param i Index of the key.
+     * @return Key.
+     */
+    public static String key(int i) {
+        return "group" + (i % 64) + ".setting" + i;
+    }
+
+    /**
+     * Create settings with a mix of integer, double, boolean and string values.
+     *
+     * @param keys Number of keys.
+     * @return Settings.
+     */
+    public static ConfigrSettingsMap settings(int keys) {
+        Random random = new Random(SEED);
+        ConfigrSettingsMap settings = new ConfigrSettingsMap(keys);
+        for (int i = 0; i < keys; i++) {
+            switch (i & 3) {
+                case 0:
+                    settings.putLong(key(i), random.nextInt());
+                    break;
+                case 1:
+                    settings.putDouble(key(i), random.nextDouble());
+                    break;
+                case 2:
+                    settings.putBoolean(key(i), random.nextBoolean());
+                    break;
+                default:
+                    settings.putString(key(i), "value-" + Long.toHexString(random.nextLong()));
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Write a config in the format of ConfigrFile.write.
+     *
+     * @param keys Number of keys.
+     * @param target File.
+     * @return Target.
+     */
+    public static File config(int keys, File target) {
+        ConfigrFile file = new ConfigrFile("Benchmark", target.getPath());
+        file.setAll(settings(keys));
+        file.write(true);
+        return target;
+    }
+
+    /**
+     * Write an importable config with the keys spread over sections.
+     *
+     * @param sections Number of sections.
+     * @param keys Number of keys in all sections together.
+     * @param target File.
+     * @return Target.
+     */
+    public static File importable(int sections, int keys, File target) {
+        Random random = new Random(SEED);
+        try (OutputStream out = new FileOutputStream(target)) {
+            StringBuilder line = new StringBuilder();
+            for (int s = 0; s < sections; s++) {
+                line.append('[').append("Section ").append(s).append("]\n");
+                for (int i = s; i < keys; i += sections) {
+                    line.append(key(i)).append('=').append(random.nextInt()).append('\n');
+                    if (line.length() > 8192) {
+                        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+                        line.setLength(0);
+                    }
+                }
+            }
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not generate config: " + e.getMessage());
+        }
+        return target;
+    }
+
+    /**
+     * Create a temporary file that is deleted when the JVM exits.
+     *
+     * @param suffix Suffix.
+     * @return File.
+     */
+    public static File temp(String suffix) {
+        try {
+            File f = File.createTempFile("configr-bench", suffix);
+            f.deleteOnExit();
+            return f;
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not create temporary file: " + e.getMessage());
+        }
+    }
+}
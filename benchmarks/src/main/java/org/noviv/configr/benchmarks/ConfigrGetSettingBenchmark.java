@@ -0,0 +1,42 @@
+package org.noviv.configr.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.noviv.configr.Configr;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Configr.getSetting on a file that is cached after the first call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConfigrGetSettingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int keys;
+
+    private String path;
+    private String key;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        File f = ConfigrConfigGenerator.importable(16, keys, ConfigrConfigGenerator.temp(".cfgr"));
+        path = f.getPath();
+        key = ConfigrConfigGenerator.key(keys - 1);
+        Configr.getSetting(path, key);
+    }
+
+    @Benchmark
+    public String getSetting() {
+        return Configr.getSetting(path, key);
+    }
+}
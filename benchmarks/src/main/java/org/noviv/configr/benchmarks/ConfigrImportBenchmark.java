@@ -0,0 +1,52 @@
+package org.noviv.configr.benchmarks;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.concurrent.TimeUnit;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.io.ConfigrImportContext;
+import org.noviv.configr.io.ConfigrImportMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Importing configs with a varying number of sections and keys through ConfigrImportContext, in each import mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigrImportBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int sections;
+
+    @Param({"10", "10000", "1000000"})
+    public int keys;
+
+    @Param({"STREAMED", "MAPPED", "PARALLEL", "LAZY"})
+    public ConfigrImportMode mode;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        file = ConfigrConfigGenerator.importable(sections, keys, ConfigrConfigGenerator.temp(".cfgr"));
+    }
+
+    @Benchmark
+    public ConfigrFile[] importFiles() throws FileNotFoundException {
+        return new ConfigrImportContext(file, "=", mode).getImportedFiles();
+    }
+
+    @Benchmark
+    public ConfigrFile importSection() throws FileNotFoundException {
+        return new ConfigrImportContext(file, "=", mode).getSection("Section 0");
+    }
+}
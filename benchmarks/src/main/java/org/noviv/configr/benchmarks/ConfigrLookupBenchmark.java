@@ -0,0 +1,82 @@
+package org.noviv.configr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.noviv.configr.data.ConfigrConcurrentSettingsMap;
+import org.noviv.configr.data.ConfigrKey;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Single setting lookups in ConfigrSettingsMap, by key and through ConfigrKey handles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConfigrLookupBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int keys;
+
+    private ConfigrSettingsMap map;
+    private ConfigrConcurrentSettingsMap concurrent;
+    private String[] lookups;
+    private String key;
+    private ConfigrKey<Long> handle;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        map = ConfigrConfigGenerator.settings(keys);
+        concurrent = new ConfigrConcurrentSettingsMap(16);
+        concurrent.putAll(map);
+        lookups = new String[1024];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = ConfigrConfigGenerator.key((int) ((i * 2654435761L) % keys));
+        }
+        key = ConfigrConfigGenerator.key(0);
+        handle = ConfigrKey.ofLong(key);
+    }
+
+    private String nextKey() {
+        next = (next + 1) & (lookups.length - 1);
+        return lookups[next];
+    }
+
+    @Benchmark
+    public Object getSetting() {
+        return map.getSetting(nextKey());
+    }
+
+    @Benchmark
+    public String getString() {
+        return map.getString(nextKey());
+    }
+
+    @Benchmark
+    public long getLong() {
+        return map.getLong(key);
+    }
+
+    @Benchmark
+    public long getLongHandle() {
+        return handle.getLong(map);
+    }
+
+    @Benchmark
+    public Object getSettingConcurrent() {
+        return concurrent.getSetting(nextKey());
+    }
+
+    @Benchmark
+    public Object getSettingMissing() {
+        return map.getSetting("missing.setting");
+    }
+}
@@ -0,0 +1,40 @@
+package org.noviv.configr.benchmarks;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.concurrent.TimeUnit;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.io.ConfigrReadContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing a whole config through ConfigrReadContext.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigrReadBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int keys;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        file = ConfigrConfigGenerator.config(keys, ConfigrConfigGenerator.temp(".cfgr"));
+    }
+
+    @Benchmark
+    public ConfigrFile read() throws FileNotFoundException {
+        return new ConfigrReadContext(file).getConfigrFile();
+    }
+}
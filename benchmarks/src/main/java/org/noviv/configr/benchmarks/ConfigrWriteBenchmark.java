@@ -0,0 +1,89 @@
+package org.noviv.configr.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.noviv.configr.ConfigrFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Writing configs through ConfigrFile.write, and bursts of changes with each way of writing automatically.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigrWriteBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int keys;
+
+    @Param({"100"})
+    public int burst;
+
+    private String key;
+    private ConfigrFile file;
+    private ConfigrFile autoWrite;
+    private ConfigrFile writeBehind;
+    private ConfigrFile journaled;
+
+    private ConfigrFile create() {
+        File target = ConfigrConfigGenerator.temp(".cfgr");
+        ConfigrFile f = new ConfigrFile("Benchmark", target.getPath());
+        f.setAll(ConfigrConfigGenerator.settings(keys));
+        f.write(true);
+        return f;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        key = ConfigrConfigGenerator.key(0);
+        file = create();
+        autoWrite = create();
+        autoWrite.setAutoWrite(true);
+        writeBehind = create();
+        writeBehind.setWriteBehind(50, 1000);
+        journaled = create();
+        journaled.setJournaled(1 << 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        writeBehind.close();
+        journaled.close();
+    }
+
+    @Benchmark
+    public void write() {
+        file.write(true);
+    }
+
+    @Benchmark
+    public void autoWriteBurst() {
+        for (int i = 0; i < burst; i++) {
+            autoWrite.set(key, i);
+        }
+    }
+
+    @Benchmark
+    public void writeBehindBurst() {
+        for (int i = 0; i < burst; i++) {
+            writeBehind.set(key, i);
+        }
+        writeBehind.flush();
+    }
+
+    @Benchmark
+    public void journaledBurst() {
+        for (int i = 0; i < burst; i++) {
+            journaled.set(key, i);
+        }
+    }
+}
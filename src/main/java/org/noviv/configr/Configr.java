@@ -1,7 +1,7 @@
 package org.noviv.configr;
 
 import java.io.FileNotFoundException;
-import org.noviv.configr.io.ConfigrImportContext;
+import org.noviv.configr.io.ConfigrFileCache;
 
 /**
  * Configr status class.
@@ -20,6 +20,8 @@ public class Configr {
 
     private static final char BUILD_TYPE = 'a';
 
+    private static final ConfigrFileCache FILE_CACHE = new ConfigrFileCache(64);
+
     private Configr() {
     }
 
@@ -66,9 +68,14 @@ public class Configr {
         if (!comps[0].equals(getName())) {
             return false;
         }
-        int check = 100 * Integer.parseInt(comps[1].substring(0, 1))
-                + 10 * Integer.parseInt(comps[1].substring(2, 3))
-                + 1 * Integer.parseInt(comps[1].substring(4, 5));
+        int check;
+        try {
+            check = 100 * Integer.parseInt(comps[1].substring(0, 1))
+                    + 10 * Integer.parseInt(comps[1].substring(2, 3))
+                    + 1 * Integer.parseInt(comps[1].substring(4, 5));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return false;
+        }
         if (check > VERSION_CHECK) {
             return false;
         }
@@ -76,7 +83,9 @@ public class Configr {
     }
 
     /**
-     * Get a setting from a file.
+     * Get a setting from a file. Parsed files are cached until they change on
+     * disk, and the sections of a cached file are resolved into one index, so
+     * the lookup does not depend on the number of sections.
      *
      * @param filePath Path of file.
      * @param setting Setting.
@@ -84,19 +93,19 @@ public class Configr {
      * found.
      */
     public static String getSetting(String filePath, String setting) {
-        ConfigrImportContext importContext;
         try {
-            importContext = new ConfigrImportContext(filePath);
+            return FILE_CACHE.getLayeredConfig(filePath).getString(setting);
         } catch (FileNotFoundException e) {
             return null;
         }
+    }
 
-        for (ConfigrFile f : importContext.getImportedFiles()) {
-            if (f.getSetting(setting) != null) {
-                return "" + f.getSetting(setting);
-            }
-        }
-
-        return null;
+    /**
+     * Get the process-wide cache used by {@link #getSetting(String, String)}.
+     *
+     * @return File cache.
+     */
+    public static ConfigrFileCache getFileCache() {
+        return FILE_CACHE;
     }
 }
@@ -0,0 +1,382 @@
+package org.noviv.configr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import org.noviv.configr.data.ConfigrKey;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * Binds a ConfigrFile to an interface of accessors, such as <code>interface DbConfig { int poolSize(); String host(); }</code>. Each abstract method is an accessor that reads the setting named by the method, or by its {@link ConfigrSetting} annotation, as the return type of the method. Default methods are inherited as declared, so they can derive values from the accessors.
+ * <p>
+ * The first bind of an interface generates a class implementing it, defined next to the interface through {@link MethodHandles.Lookup#defineClass(byte[])}. The class keeps the ConfigrFile and one ConfigrKey handle per accessor in final fields, and each accessor is a direct call to the getter of its type, so primitive accessors return without boxing or a lookup. Boxed accessors box the value. The generated class is reused for later binds of the interface.
+ * <p>
+ * Every setting is read once when the interface is bound, so missing settings, settings of the wrong type and methods that are not accessors are reported by {@link #bind(ConfigrFile, Class)} rather than at the first use. Later changes to the ConfigrFile are visible through the bound interface.
+ */
+public class ConfigrBinder {
+
+    private static final String FILE = "org/noviv/configr/ConfigrFile";
+    private static final String KEY = "org/noviv/configr/data/ConfigrKey";
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(void.class, ConfigrFile.class, ConfigrKey[].class, String.class);
+
+    private static final ClassValue<Binding> BINDINGS = new ClassValue<Binding>() {
+
+        @Override
+        protected Binding computeValue(Class<?> type) {
+            return new Binding(type);
+        }
+    };
+
+    private ConfigrBinder() {
+    }
+
+    /**
+     * Bind a ConfigrFile to an interface.
+     *
+     * @param <T> Interface type.
+     * @param file ConfigrFile.
+     * @param type Interface with accessors returning int, long, double, boolean, their boxed types, or String.
+     * @return Implementation of the interface reading from the file.
+     */
+    public static <T> T bind(ConfigrFile file, Class<T> type) {
+        if (!type.isInterface()) {
+            throw new ConfigrValidationException(type.getName() + " is not an interface.");
+        }
+        Binding binding = BINDINGS.get(type);
+        ConfigrKey<?>[] keys = new ConfigrKey<?>[binding.accessors.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key(binding.settings[i], binding.accessors[i].getReturnType());
+            keys[i].get(file);
+        }
+        try {
+            return type.cast(binding.constructor.invoke(file, keys, type.getSimpleName() + "[" + file.getName() + "]"));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ConfigrValidationException("Could not bind " + type.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isObjectMethod(Method m) {
+        try {
+            Object.class.getMethod(m.getName(), m.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ConfigrKey<?> key(String setting, Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return ConfigrKey.ofInt(setting);
+        } else if (type == long.class || type == Long.class) {
+            return ConfigrKey.ofLong(setting);
+        } else if (type == double.class || type == Double.class) {
+            return ConfigrKey.ofDouble(setting);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return ConfigrKey.ofBoolean(setting);
+        } else if (type == String.class) {
+            return ConfigrKey.ofString(setting);
+        }
+        return null;
+    }
+
+    /**
+     * The accessors of an interface, the settings they read and the constructor of the class generated for it.
+     */
+    private static final class Binding {
+
+        final Method[] accessors;
+        final String[] settings;
+        final MethodHandle constructor;
+
+        Binding(Class<?> type) {
+            LinkedHashMap<String, Method> found = new LinkedHashMap<>();
+            for (Method m : type.getMethods()) {
+                if (Modifier.isStatic(m.getModifiers()) || m.isDefault() || isObjectMethod(m)) {
+                    continue;
+                }
+                if (m.getParameterTypes().length != 0) {
+                    throw new ConfigrValidationException("Accessor " + m.getName() + " must not have parameters.");
+                }
+                if (key(m.getName(), m.getReturnType()) == null) {
+                    throw new ConfigrValidationException("Unsupported type " + m.getReturnType().getName() + " of accessor " + m.getName());
+                }
+                Method other = found.put(m.getName(), m);
+                if (other != null && other.getReturnType() != m.getReturnType()) {
+                    throw new ConfigrValidationException("Accessor " + m.getName() + " is declared with different types.");
+                }
+            }
+            accessors = found.values().toArray(new Method[0]);
+            settings = new String[accessors.length];
+            for (int i = 0; i < accessors.length; i++) {
+                ConfigrSetting setting = accessors[i].getAnnotation(ConfigrSetting.class);
+                settings[i] = setting == null ? accessors[i].getName() : setting.value();
+            }
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                Class<?> generated = lookup.defineClass(generate(type, accessors));
+                constructor = lookup.findConstructor(generated, CONSTRUCTOR).asType(CONSTRUCTOR.changeReturnType(Object.class));
+            } catch (IOException | ReflectiveOperationException | IllegalArgumentException | SecurityException | LinkageError e) {
+                throw new ConfigrValidationException("Could not generate binding of " + type.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static byte[] generate(Class<?> type, Method[] accessors) throws IOException {
+        ClassFile c = new ClassFile();
+        String self = type.getName().replace('.', '/') + "$$ConfigrBinding";
+        int thisClass = c.classRef(self);
+        int superClass = c.classRef("java/lang/Object");
+        int iface = c.classRef(type.getName().replace('.', '/'));
+        int file = c.fieldRef(self, "file", "L" + FILE + ";");
+        int name = c.fieldRef(self, "name", "Ljava/lang/String;");
+        int[] keys = new int[accessors.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = c.fieldRef(self, "key" + i, "L" + KEY + ";");
+        }
+
+        c.field("file", "L" + FILE + ";");
+        c.field("name", "Ljava/lang/String;");
+        for (int i = 0; i < keys.length; i++) {
+            c.field("key" + i, "L" + KEY + ";");
+        }
+
+        ByteArrayOutputStream init = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(init);
+        code.writeByte(0x2a); // aload_0
+        code.writeByte(0xb7); // invokespecial
+        code.writeShort(c.methodRef("java/lang/Object", "<init>", "()V"));
+        code.writeByte(0x2a);
+        code.writeByte(0x2b); // aload_1
+        code.writeByte(0xb5); // putfield
+        code.writeShort(file);
+        code.writeByte(0x2a);
+        code.writeByte(0x2d); // aload_3
+        code.writeByte(0xb5);
+        code.writeShort(name);
+        for (int i = 0; i < keys.length; i++) {
+            code.writeByte(0x2a);
+            code.writeByte(0x2c); // aload_2
+            code.writeByte(0x11); // sipush
+            code.writeShort(i);
+            code.writeByte(0x32); // aaload
+            code.writeByte(0xb5);
+            code.writeShort(keys[i]);
+        }
+        code.writeByte(0xb1); // return
+        c.method("<init>", "(L" + FILE + ";[L" + KEY + ";Ljava/lang/String;)V", 3, 4, init.toByteArray());
+
+        for (int i = 0; i < accessors.length; i++) {
+            Class<?> result = accessors[i].getReturnType();
+            String getter;
+            String primitive;
+            String box = null;
+            int ret;
+            if (result == int.class || result == Integer.class) {
+                getter = "getInt";
+                primitive = "I";
+                box = "java/lang/Integer";
+                ret = 0xac; // ireturn
+            } else if (result == long.class || result == Long.class) {
+                getter = "getLong";
+                primitive = "J";
+                box = "java/lang/Long";
+                ret = 0xad; // lreturn
+            } else if (result == double.class || result == Double.class) {
+                getter = "getDouble";
+                primitive = "D";
+                box = "java/lang/Double";
+                ret = 0xaf; // dreturn
+            } else if (result == boolean.class || result == Boolean.class) {
+                getter = "getBoolean";
+                primitive = "Z";
+                box = "java/lang/Boolean";
+                ret = 0xac;
+            } else {
+                getter = "getString";
+                primitive = "Ljava/lang/String;";
+                ret = 0xb0; // areturn
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            code = new DataOutputStream(body);
+            code.writeByte(0x2a);
+            code.writeByte(0xb4); // getfield
+            code.writeShort(keys[i]);
+            code.writeByte(0x2a);
+            code.writeByte(0xb4);
+            code.writeShort(file);
+            code.writeByte(0xb6); // invokevirtual
+            code.writeShort(c.methodRef(KEY, getter, "(L" + FILE + ";)" + primitive));
+            if (!result.isPrimitive() && box != null) {
+                code.writeByte(0xb8); // invokestatic
+                code.writeShort(c.methodRef(box, "valueOf", "(" + primitive + ")L" + box + ";"));
+                ret = 0xb0;
+            }
+            code.writeByte(ret);
+            c.method(accessors[i].getName(), "()" + descriptor(result), 2, 1, body.toByteArray());
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        code = new DataOutputStream(body);
+        code.writeByte(0x2a);
+        code.writeByte(0xb4);
+        code.writeShort(name);
+        code.writeByte(0xb0);
+        c.method("toString", "()Ljava/lang/String;", 1, 1, body.toByteArray());
+
+        return c.toByteArray(thisClass, superClass, iface);
+    }
+
+    private static String descriptor(Class<?> type) {
+        if (type == int.class) {
+            return "I";
+        } else if (type == long.class) {
+            return "J";
+        } else if (type == double.class) {
+            return "D";
+        } else if (type == boolean.class) {
+            return "Z";
+        }
+        return "L" + type.getName().replace('.', '/') + ";";
+    }
+
+    /**
+     * Minimal writer of a final class with private final fields and public methods without branches, which therefore need no stack map frames.
+     */
+    private static final class ClassFile {
+
+        private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream pool = new DataOutputStream(poolBytes);
+        private final HashMap<String, Integer> constants = new HashMap<>();
+        private int poolCount = 1;
+
+        private final ByteArrayOutputStream fieldBytes = new ByteArrayOutputStream();
+        private final DataOutputStream fields = new DataOutputStream(fieldBytes);
+        private int fieldCount;
+
+        private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+        private final DataOutputStream methods = new DataOutputStream(methodBytes);
+        private int methodCount;
+
+        int utf8(String s) throws IOException {
+            Integer i = constants.get("U" + s);
+            if (i == null) {
+                pool.writeByte(1);
+                pool.writeUTF(s);
+                i = add("U" + s);
+            }
+            return i;
+        }
+
+        int classRef(String internalName) throws IOException {
+            Integer i = constants.get("C" + internalName);
+            if (i == null) {
+                int n = utf8(internalName);
+                pool.writeByte(7);
+                pool.writeShort(n);
+                i = add("C" + internalName);
+            }
+            return i;
+        }
+
+        int fieldRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(9, owner, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) throws IOException {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) throws IOException {
+            String id = tag + owner + "." + name + ":" + descriptor;
+            Integer i = constants.get(id);
+            if (i == null) {
+                int o = classRef(owner);
+                int nameAndType = nameAndType(name, descriptor);
+                pool.writeByte(tag);
+                pool.writeShort(o);
+                pool.writeShort(nameAndType);
+                i = add(id);
+            }
+            return i;
+        }
+
+        private int nameAndType(String name, String descriptor) throws IOException {
+            String id = "N" + name + ":" + descriptor;
+            Integer i = constants.get(id);
+            if (i == null) {
+                int n = utf8(name);
+                int d = utf8(descriptor);
+                pool.writeByte(12);
+                pool.writeShort(n);
+                pool.writeShort(d);
+                i = add(id);
+            }
+            return i;
+        }
+
+        private int add(String id) {
+            int i = poolCount++;
+            constants.put(id, i);
+            return i;
+        }
+
+        void field(String name, String descriptor) throws IOException {
+            int n = utf8(name);
+            int d = utf8(descriptor);
+            fields.writeShort(0x0012); // private final
+            fields.writeShort(n);
+            fields.writeShort(d);
+            fields.writeShort(0);
+            fieldCount++;
+        }
+
+        void method(String name, String descriptor, int maxStack, int maxLocals, byte[] code) throws IOException {
+            int n = utf8(name);
+            int d = utf8(descriptor);
+            int attribute = utf8("Code");
+            methods.writeShort(0x0001); // public
+            methods.writeShort(n);
+            methods.writeShort(d);
+            methods.writeShort(1);
+            methods.writeShort(attribute);
+            methods.writeInt(12 + code.length);
+            methods.writeShort(maxStack);
+            methods.writeShort(maxLocals);
+            methods.writeInt(code.length);
+            methods.write(code);
+            methods.writeShort(0);
+            methods.writeShort(0);
+            methodCount++;
+        }
+
+        byte[] toByteArray(int thisClass, int superClass, int iface) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(55);
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(0x0031); // public final super
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(iface);
+            out.writeShort(fieldCount);
+            out.write(fieldBytes.toByteArray());
+            out.writeShort(methodCount);
+            out.write(methodBytes.toByteArray());
+            out.writeShort(0);
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -1,28 +1,48 @@
 package org.noviv.configr;
 
+import java.io.Closeable;
 import java.io.File;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import org.noviv.configr.data.ConfigrDataType;
 import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.data.ConfigrSubtree;
+import org.noviv.configr.event.ConfigrChangeDispatcher;
+import org.noviv.configr.event.ConfigrChangeEvent;
+import org.noviv.configr.event.ConfigrChangeListener;
 import org.noviv.configr.exceptions.ConfigrIOException;
 import org.noviv.configr.exceptions.ConfigrValidationException;
+import org.noviv.configr.io.ConfigrJournal;
 import org.noviv.configr.io.ConfigrWriteContext;
+import org.noviv.configr.metrics.ConfigrMetrics;
+import org.noviv.configr.metrics.ConfigrMetricsSink;
 
 /**
  * Main class of the Configr library. Holds all interfaces with the Configr
  * library.
  */
-public class ConfigrFile {
+public class ConfigrFile implements Closeable {
 
     private File file;
 
-    private ConfigrSettingsMap configs;
+    private volatile ConfigrSettingsMap configs;
+    private boolean concurrent;
     private boolean configsChanged;
 
     private String configName;
-    private boolean autoWrite;
+    private volatile boolean autoWrite;
+    private volatile ConfigrWriteBehind writeBehind;
+    private volatile ConfigrJournal journal;
+    private long journalLimit;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final Object writeLock = new Object();
 
-    private ConfigrWriteContext writeContext;
+    private final ConfigrChangeDispatcher listeners = new ConfigrChangeDispatcher();
 
     /**
      * Create a new ConfigrFile.
@@ -56,9 +76,118 @@ public class ConfigrFile {
         if (file == null && autoWrite_) {
             throw new ConfigrValidationException("Cannot enable autowriting without assigning a file.");
         }
+        stopWriteBehind();
+        stopJournal();
         autoWrite = autoWrite_;
     }
 
+    /**
+     * Set whether or not the ConfigrFile is shared between threads. In concurrent mode, the settings are an immutable snapshot: readers see it through a single volatile read and never block, while each change copies the settings and publishes the copy. Changes therefore cost time linear in the number of settings, which suits files that are read far more often than they are changed.
+     *
+     * @param concurrent_ True means concurrent mode is on.
+     */
+    public void setConcurrent(boolean concurrent_) {
+        synchronized (this) {
+            if (concurrent_ && !concurrent) {
+                configs = configs.copy();
+            }
+            concurrent = concurrent_;
+        }
+    }
+
+    /**
+     * Check whether or not the ConfigrFile is in concurrent mode.
+     *
+     * @return True means concurrent mode is on.
+     */
+    public synchronized boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * Automatically write the file in the background. Changes mark the file dirty and are coalesced into one write after a delay, or as soon as a number of changes is pending. Call {@link #flush()} or {@link #close()} to make sure pending changes are written.
+     *
+     * @param delayMillis Time after the first pending change before the file is written.
+     * @param batchSize Number of pending changes that triggers a write before the delay has passed.
+     */
+    public void setWriteBehind(long delayMillis, int batchSize) {
+        if (file == null) {
+            throw new ConfigrValidationException("Cannot enable autowriting without assigning a file.");
+        }
+        stopWriteBehind();
+        stopJournal();
+        writeBehind = new ConfigrWriteBehind(this, delayMillis, batchSize);
+        autoWrite = true;
+    }
+
+    /**
+     * Persist changes through an append-only journal next to the file. Each change appends one line to the journal instead of rewriting the file; once the journal grows past the limit, it is folded into the file in the background. The file is compacted once when the journal is enabled.
+     *
+     * @param limitBytes Journal size that triggers a compaction.
+     */
+    public void setJournaled(long limitBytes) {
+        if (file == null) {
+            throw new ConfigrValidationException("Cannot enable journaling without assigning a file.");
+        }
+        if (limitBytes < 1) {
+            throw new ConfigrValidationException("Invalid journal limit " + limitBytes);
+        }
+        stopWriteBehind();
+        stopJournal();
+        autoWrite = false;
+        ConfigrJournal j = new ConfigrJournal(file);
+        synchronized (this) {
+            journalLimit = limitBytes;
+            journal = j;
+        }
+        write(true);
+        autoWrite = true;
+    }
+
+    private void stopJournal() {
+        ConfigrJournal j;
+        synchronized (this) {
+            j = journal;
+            journal = null;
+        }
+        if (j != null) {
+            j.sync();
+            j.close();
+        }
+    }
+
+    private void compact() {
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+        ConfigrWriteBehind.executor().schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    write(false);
+                } catch (RuntimeException e) {
+                    // The journal is kept, so the next compaction retries.
+                    compacting.set(false);
+                    return;
+                }
+                compacting.set(false);
+                ConfigrJournal j = journal;
+                if (j != null && j.size() >= journalLimit) {
+                    compact();
+                }
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private void stopWriteBehind() {
+        ConfigrWriteBehind behind = writeBehind;
+        if (behind != null) {
+            writeBehind = null;
+            behind.close();
+        }
+    }
+
     /**
      * Assign ConfigrFile object to a file. File will be created if it doesn't
      * exist.
@@ -86,6 +215,54 @@ public class ConfigrFile {
         }
     }
 
+    /**
+     * Listen for changes to a setting.
+     *
+     * @param key Setting.
+     * @param listener Listener.
+     */
+    public void addChangeListener(String key, ConfigrChangeListener listener) {
+        listeners.addListener(key, listener);
+    }
+
+    /**
+     * Listen for changes to each of a number of settings.
+     *
+     * @param keys Settings.
+     * @param listener Listener.
+     */
+    public void addChangeListener(Collection<String> keys, ConfigrChangeListener listener) {
+        listeners.addListener(keys, listener);
+    }
+
+    /**
+     * Listen for changes to all settings that start with a prefix. The empty prefix matches all settings.
+     *
+     * @param prefix Prefix.
+     * @param listener Listener.
+     */
+    public void addPrefixChangeListener(String prefix, ConfigrChangeListener listener) {
+        listeners.addPrefixListener(prefix, listener);
+    }
+
+    /**
+     * Stop a listener from receiving changes.
+     *
+     * @param listener Listener.
+     */
+    public void removeChangeListener(ConfigrChangeListener listener) {
+        listeners.removeListener(listener);
+    }
+
+    /**
+     * Set the executor change events are delivered on.
+     *
+     * @param executor Executor, or null to deliver events on the thread that made the change.
+     */
+    public void setChangeExecutor(Executor executor) {
+        listeners.setExecutor(executor);
+    }
+
     /**
      * Set a setting to its default value.
      *
@@ -93,7 +270,7 @@ public class ConfigrFile {
      * @param valueType Data type.
      */
     public void set(String key, ConfigrDataType valueType) {
-        configs.put(key, valueType);
+        set(key, map -> map.put(key, valueType));
     }
 
     /**
@@ -103,7 +280,7 @@ public class ConfigrFile {
      * @param value Setting value.
      */
     public void set(String key, double value) {
-        set(key, value, ConfigrDataType.DOUBLE);
+        set(key, map -> map.putDouble(key, value));
     }
 
     /**
@@ -113,7 +290,17 @@ public class ConfigrFile {
      * @param value Setting value.
      */
     public void set(String key, int value) {
-        set(key, value, ConfigrDataType.INTEGER);
+        set(key, map -> map.putInt(key, value));
+    }
+
+    /**
+     * Set a setting to a long.
+     *
+     * @param key Setting.
+     * @param value Setting value.
+     */
+    public void set(String key, long value) {
+        set(key, map -> map.putLong(key, value));
     }
 
     /**
@@ -123,7 +310,7 @@ public class ConfigrFile {
      * @param value Setting value.
      */
     public void set(String key, boolean value) {
-        set(key, value, ConfigrDataType.BOOLEAN);
+        set(key, map -> map.putBoolean(key, value));
     }
 
     /**
@@ -133,30 +320,108 @@ public class ConfigrFile {
      * @param value Setting value.
      */
     public void set(String key, String value) {
-        set(key, value, ConfigrDataType.STRING);
+        set(key, map -> map.putString(key, value));
     }
 
-    private void set(String key, Object value, ConfigrDataType type) {
-        configs.put(key, value, type);
-        configsChanged = true;
+    private void set(String key, Consumer<ConfigrSettingsMap> put) {
+        ConfigrChangeEvent event;
+        synchronized (this) {
+            ConfigrSettingsMap map = mutable();
+            ConfigrChangeEvent previous = previous(map, key);
+            put.accept(map);
+            configs = map;
+            configsChanged = true;
+            append(key);
+            event = event(previous, map);
+        }
+        listeners.dispatch(event);
+        changed();
+    }
+
+    private ConfigrChangeEvent previous(ConfigrSettingsMap map, String key) {
+        if (!listeners.isListening(key)) {
+            return null;
+        }
+        return new ConfigrChangeEvent(this, key, map.getType(key), map.getSetting(key), null, null);
+    }
+
+    private ConfigrChangeEvent event(ConfigrChangeEvent previous, ConfigrSettingsMap map) {
+        if (previous == null) {
+            return null;
+        }
+        String key = previous.getKey();
+        return new ConfigrChangeEvent(this, key, previous.getOldType(), previous.getOldValue(), map.getType(key), map.getSetting(key));
+    }
+
+    private ConfigrSettingsMap mutable() {
+        return concurrent ? configs.copy() : configs;
+    }
+
+    private void append(String key) {
+        if (journal != null) {
+            journal.append(key, configs.getString(key));
+        }
+    }
+
+    private void changed() {
         if (autoWrite) {
-            write(true);
+            ConfigrJournal j = journal;
+            ConfigrWriteBehind behind = writeBehind;
+            if (j != null) {
+                if (j.size() >= journalLimit) {
+                    compact();
+                }
+            } else if (behind != null) {
+                behind.changed();
+            } else {
+                write(true);
+            }
         }
     }
 
     /**
-     * Change all values in current ConfigrFile to map values.
+     * Change all values in current ConfigrFile to map values. In concurrent mode, the map becomes the published snapshot and must not be modified afterwards. Listeners receive the settings that differ between the previous and the new map.
      *
      * @param newSettings New settings.
      */
     public void setAll(ConfigrSettingsMap newSettings) {
-        configs = newSettings;
-        configsChanged = true;
-        if (autoWrite) {
+        boolean journaled;
+        List<ConfigrChangeEvent> events = null;
+        synchronized (this) {
+            ConfigrSettingsMap previous = configs;
+            configs = newSettings;
+            configsChanged = true;
+            journaled = journal != null;
+            if (listeners.hasListeners()) {
+                events = listeners.diff(this, previous, newSettings);
+            }
+        }
+        listeners.dispatch(events);
+        if (journaled) {
             write(true);
+        } else {
+            changed();
         }
     }
 
+    /**
+     * Install settings that were read from the file, as a refresh does. Unlike {@link #setAll(ConfigrSettingsMap)}, the settings already match the file: they are not journaled or written back, even with automatic writing enabled. Listeners receive the settings that differ between the previous and the new map.
+     *
+     * @param newSettings Settings read from the file.
+     */
+    public void load(ConfigrSettingsMap newSettings) {
+        List<ConfigrChangeEvent> events = null;
+        synchronized (this) {
+            ConfigrSettingsMap previous = configs;
+            configs = newSettings;
+            configsChanged = false;
+            if (listeners.hasListeners()) {
+                events = listeners.diff(this, previous, newSettings);
+            }
+        }
+        listeners.dispatch(events);
+    }
+
     /**
      * Write the file only if values have been changed.
      */
@@ -170,17 +435,60 @@ public class ConfigrFile {
      * @param force Write the file regardless.
      */
     public void write(boolean force) {
-        if (configsChanged || force) {
-            ConfigrWriteContext write = new ConfigrWriteContext();
-            write.head(configName);
-            for (String s : configs.getSettings()) {
-                write.buffer(s, configs.getSetting(s).toString());
+        synchronized (writeLock) {
+            ConfigrSettingsMap snapshot;
+            ConfigrJournal j;
+            synchronized (this) {
+                if (!configsChanged && !force) {
+                    return;
+                }
+                j = journal;
+                if (j != null) {
+                    j.rotate();
+                }
+                snapshot = concurrent ? configs : configs.copy();
+                configsChanged = false;
+            }
+            try (ConfigrWriteContext write = new ConfigrWriteContext(file)) {
+                write.head(configName);
+                for (String s : snapshot.getSettings()) {
+                    write.buffer(s, snapshot.getString(s));
+                }
+                write.flush(this);
+                if (j != null) {
+                    j.commit();
+                } else {
+                    ConfigrJournal.discard(file);
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    configsChanged = true;
+                }
+                throw e;
             }
-            write.flush(this);
-            write = null;
         }
     }
 
+    /**
+     * Write changes made since the last write. With write-behind enabled, this writes pending changes immediately instead of waiting for the delay.
+     */
+    public void flush() {
+        ConfigrWriteBehind behind = writeBehind;
+        if (behind != null) {
+            behind.flush();
+        } else {
+            writeIfNecessary();
+        }
+    }
+
+    /**
+     * Flush pending changes and stop writing automatically.
+     */
+    @Override
+    public void close() {
+        setAutoWrite(false);
+    }
+
     /**
      * Print name and all settings, values, and data types to the console.
      */
@@ -191,6 +499,25 @@ public class ConfigrFile {
         }
     }
 
+    /**
+     * Get the current settings map. In concurrent mode, this is an immutable snapshot; otherwise it is the live map and must not be modified.
+     *
+     * @return Settings map.
+     */
+    public ConfigrSettingsMap getSettingsMap() {
+        return configs;
+    }
+
+    /**
+     * Get a view of all settings under a dotted prefix, such as <code>db.replica</code>. The view copies nothing and follows later changes to the file.
+     *
+     * @param prefix Prefix; the empty prefix selects all settings.
+     * @return View.
+     */
+    public ConfigrSubtree subtree(String prefix) {
+        return new ConfigrSubtree(this, prefix);
+    }
+
     /**
      * Get all settings in ConfigrFile.
      *
@@ -207,9 +534,125 @@ public class ConfigrFile {
      * @return Value.
      */
     public Object getSetting(String key) {
+        lookup(key);
         return configs.getSetting(key);
     }
 
+    /**
+     * Get the value of an integer setting without boxing.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public int getInt(String key) {
+        lookup(key);
+        return configs.getInt(key);
+    }
+
+    /**
+     * Get the value of an integer setting, or a default if the setting is not found.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public int getInt(String key, int def) {
+        lookup(key);
+        return configs.getInt(key, def);
+    }
+
+    /**
+     * Get the value of an integer setting without boxing.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public long getLong(String key) {
+        lookup(key);
+        return configs.getLong(key);
+    }
+
+    /**
+     * Get the value of an integer setting, or a default if the setting is not found.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public long getLong(String key, long def) {
+        lookup(key);
+        return configs.getLong(key, def);
+    }
+
+    /**
+     * Get the value of a double or integer setting without boxing.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public double getDouble(String key) {
+        lookup(key);
+        return configs.getDouble(key);
+    }
+
+    /**
+     * Get the value of a double or integer setting, or a default if the setting is not found.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public double getDouble(String key, double def) {
+        lookup(key);
+        return configs.getDouble(key, def);
+    }
+
+    /**
+     * Get the value of a boolean setting without boxing.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public boolean getBoolean(String key) {
+        lookup(key);
+        return configs.getBoolean(key);
+    }
+
+    /**
+     * Get the value of a boolean setting, or a default if the setting is not found.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public boolean getBoolean(String key, boolean def) {
+        lookup(key);
+        return configs.getBoolean(key, def);
+    }
+
+    /**
+     * Get the value of a setting as a string.
+     *
+     * @param key Setting.
+     * @return Value, or null if the setting is not found or has no value.
+     */
+    public String getString(String key) {
+        lookup(key);
+        return configs.getString(key);
+    }
+
+    /**
+     * Get the value of a setting as a string, or a default if the setting is not found.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public String getString(String key, String def) {
+        lookup(key);
+        return configs.getString(key, def);
+    }
+
     /**
      * Get data type of a setting.
      *
@@ -220,6 +663,13 @@ public class ConfigrFile {
         return configs.getType(key);
     }
 
+    private void lookup(String key) {
+        ConfigrMetricsSink sink = ConfigrMetrics.getLookupSink();
+        if (sink != null) {
+            sink.lookup(configName, key);
+        }
+    }
+
     /**
      * Get config name.
      *
@@ -0,0 +1,322 @@
+package org.noviv.configr;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.event.ConfigrChangeEvent;
+import org.noviv.configr.event.ConfigrChangeListener;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * Ordered stack of ConfigrFile layers, such as defaults, environment and host overrides, read as one config. A setting resolves to its value in the last layer that has a value for it; a setting without a value, such as a key on a line of its own, does not hide the values of lower layers.
+ * <p>
+ * The resolved settings are kept in one flattened index, so a lookup is a single hash probe regardless of the number of layers. The index listens to every layer for changes to any setting, including settings added or removed later, and only resolves the changed settings again. Changes are applied when the layer delivers its change events; layers with a change executor are therefore seen with a delay. Call {@link #close()} to stop listening.
+ */
+public class ConfigrLayeredConfig implements Closeable {
+
+    private final ConfigrFile[] layers;
+    private final ConcurrentHashMap<String, Resolved> index;
+    private final ConfigrChangeListener listener;
+
+    /**
+     * Create a new layered config.
+     *
+     * @param layers_ Layers, from lowest to highest precedence.
+     */
+    public ConfigrLayeredConfig(ConfigrFile... layers_) {
+        this(Arrays.asList(layers_));
+    }
+
+    /**
+     * Create a new layered config.
+     *
+     * @param layers_ Layers, from lowest to highest precedence.
+     */
+    public ConfigrLayeredConfig(List<ConfigrFile> layers_) {
+        layers = layers_.toArray(new ConfigrFile[layers_.size()]);
+        for (ConfigrFile layer : layers) {
+            if (layer == null) {
+                throw new ConfigrValidationException("Layer must not be null.");
+            }
+        }
+        index = new ConcurrentHashMap<>();
+        listener = new ConfigrChangeListener() {
+
+            @Override
+            public void changed(ConfigrChangeEvent event) {
+                resolve(event.getKey());
+            }
+        };
+        for (ConfigrFile layer : layers) {
+            layer.addPrefixChangeListener("", listener);
+        }
+        refresh();
+    }
+
+    /**
+     * Resolve all settings of all layers again. Changes are followed without this; it only makes changes visible whose events a layer's change executor has not delivered yet.
+     */
+    public synchronized void refresh() {
+        LinkedHashSet<String> keys = new LinkedHashSet<>();
+        for (ConfigrFile layer : layers) {
+            keys.addAll(layer.getSettings());
+        }
+        index.keySet().retainAll(keys);
+        for (String key : keys) {
+            resolve(key);
+        }
+    }
+
+    /**
+     * Resolve one setting again from the current state of all layers. Layers without a value for the setting are skipped, unless no layer has a value.
+     */
+    private synchronized void resolve(String key) {
+        int found = -1;
+        ConfigrDataType foundType = null;
+        for (int l = layers.length - 1; l >= 0; l--) {
+            ConfigrDataType type = layers[l].getSettingType(key);
+            if (type == null) {
+                continue;
+            }
+            Object value = type == ConfigrDataType.NULL ? null : layers[l].getSetting(key);
+            if (value != null) {
+                index.put(key, new Resolved(l, type, value, layers[l].getSettingsMap().getString(key)));
+                return;
+            }
+            if (found < 0) {
+                found = l;
+                foundType = type;
+            }
+        }
+        if (found < 0) {
+            index.remove(key);
+        } else {
+            index.put(key, new Resolved(found, foundType, null, null));
+        }
+    }
+
+    /**
+     * Stop following changes to the layers. The resolved settings are kept as they are.
+     */
+    @Override
+    public void close() {
+        for (ConfigrFile layer : layers) {
+            layer.removeChangeListener(listener);
+        }
+    }
+
+    /**
+     * Get the layers, from lowest to highest precedence.
+     *
+     * @return Layers.
+     */
+    public List<ConfigrFile> getLayers() {
+        return Collections.unmodifiableList(Arrays.asList(layers));
+    }
+
+    /**
+     * Get the layer a setting resolves to.
+     *
+     * @param key Setting.
+     * @return Layer, or null if no layer has the setting.
+     */
+    public ConfigrFile getLayer(String key) {
+        Resolved r = index.get(key);
+        return r == null ? null : layers[r.layer];
+    }
+
+    /**
+     * Get all settings of all layers.
+     *
+     * @return Settings.
+     */
+    public Set<String> getSettings() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Get the number of settings of all layers.
+     *
+     * @return Size.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Get the value of a setting.
+     *
+     * @param key Setting.
+     * @return Value, or null if no layer has the setting.
+     */
+    public Object getSetting(String key) {
+        Resolved r = index.get(key);
+        return r == null ? null : r.value;
+    }
+
+    /**
+     * Get the data type of a setting.
+     *
+     * @param key Setting.
+     * @return Data type, or null if no layer has the setting.
+     */
+    public ConfigrDataType getSettingType(String key) {
+        Resolved r = index.get(key);
+        return r == null ? null : r.type;
+    }
+
+    private Resolved entry(String key, ConfigrDataType type) {
+        Resolved r = index.get(key);
+        if (r == null) {
+            throw new ConfigrValidationException("Setting not found: " + key);
+        }
+        return check(key, r, type);
+    }
+
+    private static Resolved check(String key, Resolved r, ConfigrDataType type) {
+        if (r.type != type && !(type == ConfigrDataType.DOUBLE && r.type == ConfigrDataType.INTEGER)) {
+            throw new ConfigrValidationException("Setting " + key + " is " + r.type.getName() + ", not " + type.getName());
+        }
+        return r;
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public int getInt(String key) {
+        long value = getLong(key);
+        if (value != (int) value) {
+            throw new ConfigrValidationException("Setting " + key + " is out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Get the value of an integer setting, or a default if no layer has the setting.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public int getInt(String key, int def) {
+        return index.containsKey(key) ? getInt(key) : def;
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public long getLong(String key) {
+        return ((Number) entry(key, ConfigrDataType.INTEGER).value).longValue();
+    }
+
+    /**
+     * Get the value of an integer setting, or a default if no layer has the setting.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public long getLong(String key, long def) {
+        Resolved r = index.get(key);
+        return r == null ? def : ((Number) check(key, r, ConfigrDataType.INTEGER).value).longValue();
+    }
+
+    /**
+     * Get the value of a double or integer setting.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public double getDouble(String key) {
+        return ((Number) entry(key, ConfigrDataType.DOUBLE).value).doubleValue();
+    }
+
+    /**
+     * Get the value of a double or integer setting, or a default if no layer has the setting.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public double getDouble(String key, double def) {
+        Resolved r = index.get(key);
+        return r == null ? def : ((Number) check(key, r, ConfigrDataType.DOUBLE).value).doubleValue();
+    }
+
+    /**
+     * Get the value of a boolean setting.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public boolean getBoolean(String key) {
+        return (Boolean) entry(key, ConfigrDataType.BOOLEAN).value;
+    }
+
+    /**
+     * Get the value of a boolean setting, or a default if no layer has the setting.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public boolean getBoolean(String key, boolean def) {
+        Resolved r = index.get(key);
+        return r == null ? def : (Boolean) check(key, r, ConfigrDataType.BOOLEAN).value;
+    }
+
+    /**
+     * Get the value of a setting as a string. String values, and the text numbers were read from, are returned as stored; other values are converted.
+     *
+     * @param key Setting.
+     * @return Value, or null if no layer has the setting or it has no value.
+     */
+    public String getString(String key) {
+        Resolved r = index.get(key);
+        return r == null ? null : r.text;
+    }
+
+    /**
+     * Get the value of a setting as a string, or a default if no layer has the setting.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public String getString(String key, String def) {
+        Resolved r = index.get(key);
+        if (r == null) {
+            return def;
+        }
+        return r.text;
+    }
+
+    /**
+     * Resolved setting: the winning layer, its value and the value as a string. Immutable, so readers never see a half-updated setting.
+     */
+    private static final class Resolved {
+
+        final int layer;
+        final ConfigrDataType type;
+        final Object value;
+        final String text;
+
+        Resolved(int layer_, ConfigrDataType type_, Object value_, String text_) {
+            layer = layer_;
+            type = type_;
+            value = value_;
+            text = text_;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.noviv.configr;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the setting an accessor of a bound interface reads, when it differs from the name of the method.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ConfigrSetting {
+
+    /**
+     * Get the setting.
+     *
+     * @return Setting.
+     */
+    String value();
+}
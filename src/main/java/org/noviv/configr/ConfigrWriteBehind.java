@@ -0,0 +1,113 @@
+package org.noviv.configr;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * Coalesces the automatic writes of a ConfigrFile and runs them on a shared background thread.
+ */
+class ConfigrWriteBehind {
+
+    private static ScheduledThreadPoolExecutor executor;
+
+    private final ConfigrFile file;
+    private final long delayMillis;
+    private final int batchSize;
+
+    private int pending;
+    private ScheduledFuture<?> scheduled;
+    private boolean scheduledNow;
+    private boolean closed;
+
+    private final Runnable task = new Runnable() {
+
+        @Override
+        public void run() {
+            synchronized (ConfigrWriteBehind.this) {
+                scheduled = null;
+                scheduledNow = false;
+                pending = 0;
+            }
+            try {
+                file.writeIfNecessary();
+            } catch (RuntimeException e) {
+                // The file stays dirty, so the next write or flush retries.
+            }
+        }
+    };
+
+    ConfigrWriteBehind(ConfigrFile file_, long delayMillis_, int batchSize_) {
+        if (delayMillis_ < 0 || batchSize_ < 1) {
+            throw new ConfigrValidationException("Invalid write-behind delay " + delayMillis_ + " or batch size " + batchSize_);
+        }
+        file = file_;
+        delayMillis = delayMillis_;
+        batchSize = batchSize_;
+    }
+
+    static synchronized ScheduledThreadPoolExecutor executor() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Configr write-behind");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            executor.setRemoveOnCancelPolicy(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Record a change and schedule a write if none is pending.
+     */
+    synchronized void changed() {
+        if (closed) {
+            return;
+        }
+        pending++;
+        if (pending >= batchSize) {
+            if (!scheduledNow) {
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+                scheduled = executor().schedule(task, 0, TimeUnit.MILLISECONDS);
+                scheduledNow = true;
+            }
+        } else if (scheduled == null) {
+            scheduled = executor().schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+            scheduledNow = false;
+        }
+    }
+
+    /**
+     * Write pending changes on the calling thread.
+     */
+    void flush() {
+        synchronized (this) {
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+            scheduledNow = false;
+            pending = 0;
+        }
+        file.writeIfNecessary();
+    }
+
+    /**
+     * Write pending changes and stop scheduling writes.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+    }
+}
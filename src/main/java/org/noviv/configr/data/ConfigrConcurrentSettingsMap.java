@@ -0,0 +1,534 @@
+package org.noviv.configr.data;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * Map of all settings and their data types that can be read and changed by many threads at once. Settings are spread over striped segments, each a ConfigrSettingsMap behind its own read-write lock, so a value and its data type always change together and threads working on different segments do not contend.
+ * <p>
+ * Settings are iterated segment by segment rather than in insertion order. getSettings, copy and snapshot lock all segments and return a consistent point-in-time view.
+ */
+public class ConfigrConcurrentSettingsMap extends ConfigrSettingsMap {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    private final ConfigrSettingsMap[] segments;
+    private final ReentrantReadWriteLock[] locks;
+    private final int shift;
+
+    /**
+     * Create a new map with the default number of segments.
+     */
+    public ConfigrConcurrentSettingsMap() {
+        this(DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Create a new map.
+     *
+     * @param segmentCount Number of segments, rounded up to a power of two.
+     */
+    public ConfigrConcurrentSettingsMap(int segmentCount) {
+        super(0);
+        if (segmentCount < 1 || segmentCount > 1 << 16) {
+            throw new ConfigrValidationException("Invalid segment count " + segmentCount);
+        }
+        int size = Integer.highestOneBit(segmentCount);
+        if (size < segmentCount) {
+            size <<= 1;
+        }
+        shift = 32 - Integer.numberOfTrailingZeros(size);
+        segments = new ConfigrSettingsMap[size];
+        locks = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            segments[i] = new ConfigrSettingsMap();
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    private int segmentFor(String key) {
+        // The segment comes from the high bits, so keys in a segment still spread over its own index.
+        return shift == 32 ? 0 : (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Create a copy of the map with the same number of segments.
+     *
+     * @return Copy.
+     */
+    @Override
+    public ConfigrSettingsMap copy() {
+        ConfigrConcurrentSettingsMap copy = new ConfigrConcurrentSettingsMap(segments.length);
+        lockAll();
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                copy.segments[i] = segments[i].copy();
+            }
+        } finally {
+            unlockAll();
+        }
+        return copy;
+    }
+
+    /**
+     * Get a consistent copy of all settings as a single-threaded map.
+     *
+     * @return Snapshot.
+     */
+    public ConfigrSettingsMap snapshot() {
+        lockAll();
+        try {
+            int size = 0;
+            for (ConfigrSettingsMap segment : segments) {
+                size += segment.size();
+            }
+            ConfigrSettingsMap snapshot = new ConfigrSettingsMap(size);
+            for (ConfigrSettingsMap segment : segments) {
+                snapshot.putAll(segment);
+            }
+            return snapshot;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    ConfigrSettingsMap plain() {
+        return snapshot();
+    }
+
+    @Override
+    boolean indexed() {
+        return false;
+    }
+
+    private void lockAll() {
+        for (ReentrantReadWriteLock lock : locks) {
+            lock.readLock().lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(String key, Object value, ConfigrDataType type) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            segments[s].put(key, value, type);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putLong(String key, long value) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            segments[s].putLong(key, value);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putLong(String key, long value, String text) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            segments[s].putLong(key, value, text);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            segments[s].putDouble(key, value);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putDouble(String key, double value, String text) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            segments[s].putDouble(key, value, text);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            segments[s].putBoolean(key, value);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            segments[s].putString(key, value);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Put all settings of another map in this map, keeping their data types. Each segment is updated atomically, the map as a whole is not.
+     *
+     * @param other Map.
+     */
+    @Override
+    public void putAll(ConfigrSettingsMap other) {
+        ConfigrSettingsMap from = other.plain();
+        ConfigrSettingsMap[] parts = new ConfigrSettingsMap[segments.length];
+        for (String key : from.getSettings()) {
+            int s = segmentFor(key);
+            if (parts[s] == null) {
+                parts[s] = new ConfigrSettingsMap();
+            }
+            parts[s].putEntry(from, key);
+        }
+        for (int s = 0; s < parts.length; s++) {
+            if (parts[s] == null) {
+                continue;
+            }
+            locks[s].writeLock().lock();
+            try {
+                segments[s].putAll(parts[s]);
+            } finally {
+                locks[s].writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Put a setting in the map only if it is not in the map yet.
+     *
+     * @param key Setting.
+     * @param value Value.
+     * @param type Data type.
+     * @return True if the setting was put in the map.
+     */
+    public boolean putIfAbsent(String key, Object value, ConfigrDataType type) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            if (segments[s].getType(key) != null) {
+                return false;
+            }
+            segments[s].put(key, value, type);
+            return true;
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the value of a setting only if it currently equals the expected value. Numbers are compared by value, so an Integer matches a Long. The data type of the setting becomes the data type of the new value.
+     *
+     * @param key Setting.
+     * @param expect Expected value, or null if the setting should not exist.
+     * @param update New value.
+     * @return True if the value was replaced.
+     */
+    public boolean compareAndSet(String key, Object expect, Object update) {
+        ConfigrDataType type = typeOf(key, update);
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            if (!same(segments[s].getSetting(key), expect)) {
+                return false;
+            }
+            segments[s].put(key, update, type);
+            return true;
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compute a new value for a setting from its current value, atomically. The function must not access this map. The data type of the setting becomes the data type of the new value.
+     *
+     * @param key Setting.
+     * @param function Function of setting and current value, which is null if the setting does not exist. Returning null leaves the setting unchanged.
+     * @return New value, or the current value if the function returned null.
+     */
+    public Object compute(String key, BiFunction<String, Object, Object> function) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            Object current = segments[s].getSetting(key);
+            Object update = function.apply(key, current);
+            if (update == null) {
+                return current;
+            }
+            segments[s].put(key, update, typeOf(key, update));
+            return update;
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add to an integer setting atomically. A setting that does not exist starts at 0.
+     *
+     * @param key Setting.
+     * @param delta Amount to add.
+     * @return New value.
+     */
+    public long increment(String key, long delta) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            long value = segments[s].getLong(key, 0) + delta;
+            segments[s].putLong(key, value);
+            return value;
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add to a double setting atomically. A setting that does not exist starts at 0.
+     *
+     * @param key Setting.
+     * @param delta Amount to add.
+     * @return New value.
+     */
+    public double increment(String key, double delta) {
+        int s = segmentFor(key);
+        locks[s].writeLock().lock();
+        try {
+            ConfigrSettingsMap segment = segments[s];
+            ConfigrDataType type = segment.getType(key);
+            if (type != null && type != ConfigrDataType.DOUBLE) {
+                throw new ConfigrValidationException("Setting " + key + " is " + type.getName() + ", not " + ConfigrDataType.DOUBLE.getName());
+            }
+            double value = segment.getDouble(key, 0) + delta;
+            segment.putDouble(key, value);
+            return value;
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    private static ConfigrDataType typeOf(String key, Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ConfigrDataType.INTEGER;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return ConfigrDataType.DOUBLE;
+        }
+        if (value instanceof Boolean) {
+            return ConfigrDataType.BOOLEAN;
+        }
+        if (value instanceof String) {
+            return ConfigrDataType.STRING;
+        }
+        throw new ConfigrValidationException("Invalid value for " + key + ": " + value);
+    }
+
+    private static boolean same(Object current, Object expect) {
+        if (current instanceof Number && expect instanceof Number) {
+            if (current instanceof Double || expect instanceof Double || expect instanceof Float) {
+                return Double.compare(((Number) current).doubleValue(), ((Number) expect).doubleValue()) == 0;
+            }
+            return ((Number) current).longValue() == ((Number) expect).longValue();
+        }
+        return Objects.equals(current, expect);
+    }
+
+    /**
+     * Get all settings in the map. The set is a snapshot and does not change with the map.
+     *
+     * @return Set of all settings.
+     */
+    @Override
+    public Set<String> getSettings() {
+        return snapshot().getSettings();
+    }
+
+    @Override
+    public Object getSetting(String key) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getSetting(key);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getInt(String key) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getInt(key);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getInt(String key, int def) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getInt(key, def);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getLong(String key) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getLong(key);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getLong(String key, long def) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getLong(key, def);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public double getDouble(String key) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getDouble(key);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public double getDouble(String key, double def) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getDouble(key, def);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean getBoolean(String key) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getBoolean(key);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean def) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getBoolean(key, def);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public String getString(String key) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getString(key);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public String getString(String key, String def) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getString(key, def);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public ConfigrDataType getType(String key) {
+        int s = segmentFor(key);
+        locks[s].readLock().lock();
+        try {
+            return segments[s].getType(key);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int s = 0; s < segments.length; s++) {
+            locks[s].readLock().lock();
+            try {
+                size += segments[s].size();
+            } finally {
+                locks[s].readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (ReentrantReadWriteLock lock : locks) {
+            lock.writeLock().lock();
+        }
+        try {
+            for (ConfigrSettingsMap segment : segments) {
+                segment.clear();
+            }
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.noviv.configr.data;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * Pool of canonical strings, shared by all parsers it is given to. Keys that occur in many sections and files, and optionally short values, are then held once on the heap instead of once per map. Equal keys from the pool are the same instance, so comparing them stops at the identity check.
+ * <p>
+ * Strings are held weakly and disappear from the pool once no map refers to them. The pool is split into stripes with their own lock, so parsers on several threads rarely contend.
+ */
+public class ConfigrInternPool {
+
+    private static final int STRIPES = 16;
+    private static final ConfigrInternPool SHARED = new ConfigrInternPool(16);
+
+    private final WeakHashMap<String, WeakReference<String>>[] stripes;
+    private final int maxValueLength;
+
+    /**
+     * Create a new pool.
+     *
+     * @param maxValueLength_ Longest value that is interned; 0 to only intern keys and section names.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConfigrInternPool(int maxValueLength_) {
+        if (maxValueLength_ < 0) {
+            throw new ConfigrValidationException("Invalid maximum value length " + maxValueLength_);
+        }
+        maxValueLength = maxValueLength_;
+        stripes = new WeakHashMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new WeakHashMap<>();
+        }
+    }
+
+    /**
+     * Get the pool shared by the whole JVM. It interns values of up to 16 characters.
+     *
+     * @return Shared pool.
+     */
+    public static ConfigrInternPool getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Get the canonical instance of a string, adding it to the pool if it is not in the pool yet.
+     *
+     * @param s String.
+     * @return Canonical string equal to s.
+     */
+    public String intern(String s) {
+        WeakHashMap<String, WeakReference<String>> stripe = stripes[(s.hashCode() * 0x9E3779B9) >>> 28];
+        synchronized (stripe) {
+            WeakReference<String> ref = stripe.get(s);
+            String canonical = ref == null ? null : ref.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            stripe.put(s, new WeakReference<>(s));
+            return s;
+        }
+    }
+
+    /**
+     * Get the canonical instance of a value if it is short enough to be interned.
+     *
+     * @param value Value, may be null.
+     * @return Canonical value, or the value itself.
+     */
+    public String internValue(String value) {
+        if (value == null || value.length() > maxValueLength) {
+            return value;
+        }
+        return intern(value);
+    }
+
+    /**
+     * Get the longest value that is interned.
+     *
+     * @return Maximum value length.
+     */
+    public int getMaxValueLength() {
+        return maxValueLength;
+    }
+
+    /**
+     * Get the number of strings in the pool. Strings that are no longer referenced are only removed once the garbage collector cleared them.
+     *
+     * @return Size.
+     */
+    public int size() {
+        int size = 0;
+        for (WeakHashMap<String, WeakReference<String>> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,319 @@
+package org.noviv.configr.data;
+
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * Handle for reading one setting repeatedly. The handle binds to the entry of the setting in a settings map, so later reads neither hash the key nor box primitive values. Only the data type tag of the entry is checked on each read.
+ * <p>
+ * A handle rebinds on its own when the ConfigrFile installs another map, for example through setAll or a refresh, or when the map is cleared. Rebinding costs one lookup. Handles may be shared between threads. Maps that do not keep their entries in one table, like ConfigrConcurrentSettingsMap, are read by key instead.
+ *
+ * @param <T> Java type of the value.
+ */
+public final class ConfigrKey<T> {
+
+    private final String key;
+    private final ConfigrDataType type;
+    private final Class<T> valueClass;
+
+    private Binding binding;
+
+    private ConfigrKey(String key_, ConfigrDataType type_, Class<T> valueClass_) {
+        key = key_;
+        type = type_;
+        valueClass = valueClass_;
+    }
+
+    /**
+     * Create a handle for an integer setting read as a long.
+     *
+     * @param key Setting.
+     * @return Handle.
+     */
+    public static ConfigrKey<Long> ofLong(String key) {
+        return new ConfigrKey<>(key, ConfigrDataType.INTEGER, Long.class);
+    }
+
+    /**
+     * Create a handle for an integer setting read as an int.
+     *
+     * @param key Setting.
+     * @return Handle.
+     */
+    public static ConfigrKey<Integer> ofInt(String key) {
+        return new ConfigrKey<>(key, ConfigrDataType.INTEGER, Integer.class);
+    }
+
+    /**
+     * Create a handle for a double setting. Integer settings are read as doubles as well.
+     *
+     * @param key Setting.
+     * @return Handle.
+     */
+    public static ConfigrKey<Double> ofDouble(String key) {
+        return new ConfigrKey<>(key, ConfigrDataType.DOUBLE, Double.class);
+    }
+
+    /**
+     * Create a handle for a boolean setting.
+     *
+     * @param key Setting.
+     * @return Handle.
+     */
+    public static ConfigrKey<Boolean> ofBoolean(String key) {
+        return new ConfigrKey<>(key, ConfigrDataType.BOOLEAN, Boolean.class);
+    }
+
+    /**
+     * Create a handle for a string setting.
+     *
+     * @param key Setting.
+     * @return Handle.
+     */
+    public static ConfigrKey<String> ofString(String key) {
+        return new ConfigrKey<>(key, ConfigrDataType.STRING, String.class);
+    }
+
+    /**
+     * Create a handle for a setting of any data type, read as its boxed value.
+     *
+     * @param key Setting.
+     * @param type Data type.
+     * @return Handle.
+     */
+    public static ConfigrKey<Object> of(String key, ConfigrDataType type) {
+        return new ConfigrKey<>(key, type, Object.class);
+    }
+
+    /**
+     * Get the setting of the handle.
+     *
+     * @return Setting.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the data type of the handle.
+     *
+     * @return Data type.
+     */
+    public ConfigrDataType getType() {
+        return type;
+    }
+
+    private int entry(ConfigrSettingsMap map) {
+        Binding b = binding;
+        if (b == null || b.map != map || b.epoch != map.epoch() || (b.entry < 0 && b.size != map.size())) {
+            b = new Binding(map, map.epoch(), map.indexOf(key), map.size());
+            binding = b;
+        }
+        return b.entry;
+    }
+
+    private int check(ConfigrSettingsMap map, ConfigrDataType expected) {
+        int e = entry(map);
+        check(e < 0 ? null : map.typeAt(e), expected);
+        return e;
+    }
+
+    private void check(ConfigrDataType actual, ConfigrDataType expected) {
+        if (actual == null) {
+            throw new ConfigrValidationException("Setting not found: " + key);
+        }
+        if (actual != expected && !(expected == ConfigrDataType.DOUBLE && actual == ConfigrDataType.INTEGER)) {
+            throw new ConfigrValidationException("Setting " + key + " is " + actual.getName() + ", not " + expected.getName());
+        }
+    }
+
+    /**
+     * Check whether the setting exists.
+     *
+     * @param file ConfigrFile.
+     * @return True means the setting exists.
+     */
+    public boolean isPresent(ConfigrFile file) {
+        ConfigrSettingsMap map = file.getSettingsMap();
+        return map.indexed() ? entry(map) >= 0 : map.getType(key) != null;
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param file ConfigrFile.
+     * @return Value.
+     */
+    public long getLong(ConfigrFile file) {
+        return getLong(file.getSettingsMap());
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param map Settings map.
+     * @return Value.
+     */
+    public long getLong(ConfigrSettingsMap map) {
+        if (!map.indexed()) {
+            return map.getLong(key);
+        }
+        return map.bitsAt(check(map, ConfigrDataType.INTEGER));
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param file ConfigrFile.
+     * @return Value.
+     */
+    public int getInt(ConfigrFile file) {
+        return getInt(file.getSettingsMap());
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param map Settings map.
+     * @return Value.
+     */
+    public int getInt(ConfigrSettingsMap map) {
+        long value = getLong(map);
+        if (value != (int) value) {
+            throw new ConfigrValidationException("Setting " + key + " is out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Get the value of a double or integer setting.
+     *
+     * @param file ConfigrFile.
+     * @return Value.
+     */
+    public double getDouble(ConfigrFile file) {
+        return getDouble(file.getSettingsMap());
+    }
+
+    /**
+     * Get the value of a double or integer setting.
+     *
+     * @param map Settings map.
+     * @return Value.
+     */
+    public double getDouble(ConfigrSettingsMap map) {
+        if (!map.indexed()) {
+            return map.getDouble(key);
+        }
+        int e = check(map, ConfigrDataType.DOUBLE);
+        if (map.typeAt(e) == ConfigrDataType.INTEGER) {
+            return map.bitsAt(e);
+        }
+        return Double.longBitsToDouble(map.bitsAt(e));
+    }
+
+    /**
+     * Get the value of a boolean setting.
+     *
+     * @param file ConfigrFile.
+     * @return Value.
+     */
+    public boolean getBoolean(ConfigrFile file) {
+        return getBoolean(file.getSettingsMap());
+    }
+
+    /**
+     * Get the value of a boolean setting.
+     *
+     * @param map Settings map.
+     * @return Value.
+     */
+    public boolean getBoolean(ConfigrSettingsMap map) {
+        if (!map.indexed()) {
+            return map.getBoolean(key);
+        }
+        return map.bitsAt(check(map, ConfigrDataType.BOOLEAN)) != 0;
+    }
+
+    /**
+     * Get the value of the setting as a string. Other values are converted.
+     *
+     * @param file ConfigrFile.
+     * @return Value.
+     */
+    public String getString(ConfigrFile file) {
+        return getString(file.getSettingsMap());
+    }
+
+    /**
+     * Get the value of the setting as a string. Other values are converted.
+     *
+     * @param map Settings map.
+     * @return Value.
+     */
+    public String getString(ConfigrSettingsMap map) {
+        if (!map.indexed()) {
+            check(map.getType(key), type);
+            return map.getString(key);
+        }
+        return map.stringAt(check(map, type));
+    }
+
+    /**
+     * Get the value of the setting, boxed as the Java type of the handle.
+     *
+     * @param file ConfigrFile.
+     * @return Value.
+     */
+    public T get(ConfigrFile file) {
+        return get(file.getSettingsMap());
+    }
+
+    /**
+     * Get the value of the setting, boxed as the Java type of the handle.
+     *
+     * @param map Settings map.
+     * @return Value.
+     */
+    public T get(ConfigrSettingsMap map) {
+        Object value;
+        if (valueClass == Long.class) {
+            value = getLong(map);
+        } else if (valueClass == Integer.class) {
+            value = getInt(map);
+        } else if (valueClass == Double.class) {
+            value = getDouble(map);
+        } else if (valueClass == Boolean.class) {
+            value = getBoolean(map);
+        } else if (valueClass == String.class) {
+            value = getString(map);
+        } else {
+            check(map.getType(key), type);
+            value = map.getSetting(key);
+        }
+        return valueClass.cast(value);
+    }
+
+    @Override
+    public String toString() {
+        return key + "(" + type + ")";
+    }
+
+    /**
+     * Entry of the setting in one map. Immutable, so a binding read by another thread is always consistent.
+     */
+    private static final class Binding {
+
+        final ConfigrSettingsMap map;
+        final int epoch;
+        final int entry;
+        final int size;
+
+        Binding(ConfigrSettingsMap map_, int epoch_, int entry_, int size_) {
+            map = map_;
+            epoch = epoch_;
+            entry = entry_;
+            size = size_;
+        }
+    }
+}
@@ -1,24 +1,78 @@
 package org.noviv.configr.data;
 
-import java.util.HashMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import org.noviv.configr.exceptions.ConfigrValidationException;
 
 /**
- * Map of all settings and their data types.
+ * Map of all settings and their data types. Integer, double and boolean values are stored unboxed and converted once when they are put in the map. Numbers read from text that converts back differently, like <code>007</code> or <code>1.10</code>, keep that text for {@link #getString(String)}.
+ * <p>
+ * Entries are kept in one compact table: key, hash, type tag and value slot live at the same index of parallel arrays, in insertion order, and an open-addressing index of ints maps hashes to entries.
+ * <p>
+ * Dotted keys like <code>db.replica.host</code> can be read as a hierarchy through {@link #subtree(String)}. The trie behind it is built on the first call and then kept up to date as settings are added.
  */
 public class ConfigrSettingsMap {
 
-    private HashMap<String, Object> settingsMap;
-    private HashMap<String, ConfigrDataType> typeMap;
+    private static final ConfigrDataType[] TYPES = ConfigrDataType.values();
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private String[] keys;
+    private int[] hashes;
+    private byte[] types;
+    private long[] bits;
+    private Object[] refs;
+    private int count;
+    private int epoch;
+
+    private int[] index;
+    private volatile TrieNode trie;
 
     /**
      * Create a new map.
      */
     public ConfigrSettingsMap() {
-        settingsMap = new HashMap<>();
-        typeMap = new HashMap<>();
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new map sized for a number of settings.
+     *
+     * @param capacity Expected number of settings.
+     */
+    public ConfigrSettingsMap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        types = new byte[capacity];
+        bits = new long[capacity];
+        refs = new Object[capacity];
+        index = new int[indexSize(capacity)];
+    }
+
+    /**
+     * Create a copy of the map.
+     *
+     * @return Copy.
+     */
+    public ConfigrSettingsMap copy() {
+        ConfigrSettingsMap copy = new ConfigrSettingsMap(0);
+        copy.keys = keys.clone();
+        copy.hashes = hashes.clone();
+        copy.types = types.clone();
+        copy.bits = bits.clone();
+        copy.refs = refs.clone();
+        copy.index = index.clone();
+        copy.count = count;
+        return copy;
     }
 
     /**
@@ -32,34 +86,498 @@ public class ConfigrSettingsMap {
     }
 
     /**
-     * Put a setting in the map.
+     * Put a setting in the map. String values of integer, double and boolean settings are parsed.
      *
      * @param key Setting.
      * @param value Value.
      * @param type Data type.
      */
     public void put(String key, Object value, ConfigrDataType type) {
-        settingsMap.put(key, value);
-        typeMap.put(key, type);
+        switch (type) {
+            case INTEGER:
+                if (value instanceof Number) {
+                    putLong(key, ((Number) value).longValue());
+                } else {
+                    try {
+                        putLong(key, Long.parseLong(String.valueOf(value)));
+                    } catch (NumberFormatException e) {
+                        throw new ConfigrValidationException("Invalid " + type.getName() + " value for " + key + ": " + value);
+                    }
+                }
+                break;
+            case DOUBLE:
+                if (value instanceof Number) {
+                    putDouble(key, ((Number) value).doubleValue());
+                } else {
+                    try {
+                        putDouble(key, Double.parseDouble(String.valueOf(value)));
+                    } catch (NumberFormatException e) {
+                        throw new ConfigrValidationException("Invalid " + type.getName() + " value for " + key + ": " + value);
+                    }
+                }
+                break;
+            case BOOLEAN:
+                if (value instanceof Boolean) {
+                    putBoolean(key, (Boolean) value);
+                } else if ("true".equals(value) || "false".equals(value)) {
+                    putBoolean(key, "true".equals(value));
+                } else {
+                    throw new ConfigrValidationException("Invalid " + type.getName() + " value for " + key + ": " + value);
+                }
+                break;
+            default:
+                int e = slot(key, type);
+                refs[e] = value;
+        }
+    }
+
+    /**
+     * Put an integer setting in the map.
+     *
+     * @param key Setting.
+     * @param value Value.
+     */
+    public void putInt(String key, int value) {
+        putLong(key, value);
+    }
+
+    /**
+     * Put an integer setting in the map.
+     *
+     * @param key Setting.
+     * @param value Value.
+     */
+    public void putLong(String key, long value) {
+        putLong(key, value, null);
+    }
+
+    /**
+     * Put an integer setting in the map along with the text it was read from, which is returned as its string value.
+     *
+     * @param key Setting.
+     * @param value Value.
+     * @param text Text of the value, or null if it is the text the value converts to.
+     */
+    public void putLong(String key, long value, String text) {
+        int e = slot(key, ConfigrDataType.INTEGER);
+        bits[e] = value;
+        refs[e] = text;
+    }
+
+    /**
+     * Put a double setting in the map.
+     *
+     * @param key Setting.
+     * @param value Value.
+     */
+    public void putDouble(String key, double value) {
+        putDouble(key, value, null);
+    }
+
+    /**
+     * Put a double setting in the map along with the text it was read from, which is returned as its string value.
+     *
+     * @param key Setting.
+     * @param value Value.
+     * @param text Text of the value, or null if it is the text the value converts to.
+     */
+    public void putDouble(String key, double value, String text) {
+        int e = slot(key, ConfigrDataType.DOUBLE);
+        bits[e] = Double.doubleToRawLongBits(value);
+        refs[e] = text;
+    }
+
+    /**
+     * Put a boolean setting in the map.
+     *
+     * @param key Setting.
+     * @param value Value.
+     */
+    public void putBoolean(String key, boolean value) {
+        int e = slot(key, ConfigrDataType.BOOLEAN);
+        bits[e] = value ? 1 : 0;
+    }
+
+    /**
+     * Put a string setting in the map.
+     *
+     * @param key Setting.
+     * @param value Value.
+     */
+    public void putString(String key, String value) {
+        int e = slot(key, ConfigrDataType.STRING);
+        refs[e] = value;
+    }
+
+    /**
+     * Put all settings of another map in this map, keeping their data types.
+     *
+     * @param other Map.
+     */
+    public void putAll(ConfigrSettingsMap other) {
+        ConfigrSettingsMap from = other.plain();
+        for (int i = 0; i < from.count; i++) {
+            int e = slot(from.keys[i], TYPES[from.types[i]]);
+            bits[e] = from.bits[i];
+            refs[e] = from.refs[i];
+        }
+    }
+
+    void putEntry(ConfigrSettingsMap from, String key) {
+        int i = from.find(key);
+        int e = slot(key, TYPES[from.types[i]]);
+        bits[e] = from.bits[i];
+        refs[e] = from.refs[i];
+    }
+
+    /**
+     * Get the index of the entry of a setting. Indices stay valid until the map is cleared.
+     *
+     * @param key Setting.
+     * @return Index, or -1 if the setting is not found.
+     */
+    int indexOf(String key) {
+        return find(key);
+    }
+
+    /**
+     * Get the number of times the map was cleared, which invalidates all entry indices.
+     *
+     * @return Epoch.
+     */
+    int epoch() {
+        return epoch;
+    }
+
+    ConfigrDataType typeAt(int e) {
+        return TYPES[types[e]];
+    }
+
+    long bitsAt(int e) {
+        return bits[e];
+    }
+
+    /**
+     * Check whether the entries of the map can be read by index.
+     *
+     * @return True for maps that hold their entries in their own table.
+     */
+    boolean indexed() {
+        return true;
+    }
+
+    /**
+     * Get a map whose entries are held in this instance's own table.
+     *
+     * @return This map.
+     */
+    ConfigrSettingsMap plain() {
+        return this;
+    }
+
+    private int slot(String key, ConfigrDataType type) {
+        int h = hash(key);
+        int mask = index.length - 1;
+        int i = h & mask;
+        int e;
+        while ((e = index[i]) != 0) {
+            e--;
+            if (hashes[e] == h && key.equals(keys[e])) {
+                types[e] = (byte) type.ordinal();
+                bits[e] = 0;
+                refs[e] = null;
+                return e;
+            }
+            i = (i + 1) & mask;
+        }
+        if (count == keys.length) {
+            grow();
+            return slot(key, type);
+        }
+        e = count++;
+        keys[e] = key;
+        hashes[e] = h;
+        types[e] = (byte) type.ordinal();
+        index[i] = e + 1;
+        TrieNode t = trie;
+        if (t != null) {
+            t.add(key, e);
+        }
+        return e;
+    }
+
+    private int find(String key) {
+        int h = hash(key);
+        int mask = index.length - 1;
+        int i = h & mask;
+        int e;
+        while ((e = index[i]) != 0) {
+            e--;
+            if (hashes[e] == h && key.equals(keys[e])) {
+                return e;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int capacity = keys.length + (keys.length >> 1) + 1;
+        keys = Arrays.copyOf(keys, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        types = Arrays.copyOf(types, capacity);
+        bits = Arrays.copyOf(bits, capacity);
+        refs = Arrays.copyOf(refs, capacity);
+        int size = indexSize(capacity);
+        if (size != index.length) {
+            index = new int[size];
+            int mask = size - 1;
+            for (int e = 0; e < count; e++) {
+                int i = hashes[e] & mask;
+                while (index[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                index[i] = e + 1;
+            }
+        }
+    }
+
+    private static int indexSize(int capacity) {
+        int size = Integer.highestOneBit(capacity) << 1;
+        return size < capacity * 4 / 3 + 1 ? size << 1 : size;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
     }
 
     /**
-     * Get all settings in map.
+     * Get all settings in map, in insertion order.
      *
      * @return Set of all settings.
      */
     public Set<String> getSettings() {
-        return settingsMap.keySet();
+        return new AbstractSet<String>() {
+
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < count;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (next >= count) {
+                            throw new NoSuchElementException();
+                        }
+                        return keys[next++];
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && find((String) o) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
     }
 
     /**
-     * Get the value of a specific setting.
+     * Get the value of a specific setting. Integer, double and boolean values are boxed; use the typed getters to avoid this.
      *
      * @param key Setting.
      * @return Value as an object.
      */
     public Object getSetting(String key) {
-        return settingsMap.get(key);
+        int e = find(key);
+        if (e < 0) {
+            return null;
+        }
+        switch (TYPES[types[e]]) {
+            case INTEGER:
+                if (bits[e] == (int) bits[e]) {
+                    return (int) bits[e];
+                }
+                return bits[e];
+            case DOUBLE:
+                return Double.longBitsToDouble(bits[e]);
+            case BOOLEAN:
+                return bits[e] != 0;
+            default:
+                return refs[e];
+        }
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public int getInt(String key) {
+        long value = bits[entry(key, ConfigrDataType.INTEGER)];
+        if (value != (int) value) {
+            throw new ConfigrValidationException("Setting " + key + " is out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Get the value of an integer setting, or a default if the setting is not found.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public int getInt(String key, int def) {
+        return find(key) < 0 ? def : getInt(key);
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public long getLong(String key) {
+        return bits[entry(key, ConfigrDataType.INTEGER)];
+    }
+
+    /**
+     * Get the value of an integer setting, or a default if the setting is not found.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public long getLong(String key, long def) {
+        int e = find(key);
+        return e < 0 ? def : bits[check(key, e, ConfigrDataType.INTEGER)];
+    }
+
+    /**
+     * Get the value of a double or integer setting.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public double getDouble(String key) {
+        int e = find(key);
+        if (e < 0) {
+            throw new ConfigrValidationException("Setting not found: " + key);
+        }
+        return doubleAt(key, e);
+    }
+
+    /**
+     * Get the value of a double or integer setting, or a default if the setting is not found.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public double getDouble(String key, double def) {
+        int e = find(key);
+        return e < 0 ? def : doubleAt(key, e);
+    }
+
+    private double doubleAt(String key, int e) {
+        if (types[e] == ConfigrDataType.INTEGER.ordinal()) {
+            return bits[e];
+        }
+        return Double.longBitsToDouble(bits[check(key, e, ConfigrDataType.DOUBLE)]);
+    }
+
+    /**
+     * Get the value of a boolean setting.
+     *
+     * @param key Setting.
+     * @return Value.
+     */
+    public boolean getBoolean(String key) {
+        return bits[entry(key, ConfigrDataType.BOOLEAN)] != 0;
+    }
+
+    /**
+     * Get the value of a boolean setting, or a default if the setting is not found.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public boolean getBoolean(String key, boolean def) {
+        int e = find(key);
+        return e < 0 ? def : bits[check(key, e, ConfigrDataType.BOOLEAN)] != 0;
+    }
+
+    /**
+     * Get the value of a setting as a string. String values, and the text numbers were read from, are returned as stored; other values are converted.
+     *
+     * @param key Setting.
+     * @return Value, or null if the setting is not found or has no value.
+     */
+    public String getString(String key) {
+        int e = find(key);
+        return e < 0 ? null : stringAt(e);
+    }
+
+    String stringAt(int e) {
+        if (refs[e] != null) {
+            return refs[e].toString();
+        }
+        switch (TYPES[types[e]]) {
+            case INTEGER:
+                return Long.toString(bits[e]);
+            case DOUBLE:
+                return Double.toString(Double.longBitsToDouble(bits[e]));
+            case BOOLEAN:
+                return bits[e] != 0 ? "true" : "false";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Get the value of a setting as a string, or a default if the setting is not found.
+     *
+     * @param key Setting.
+     * @param def Default value.
+     * @return Value.
+     */
+    public String getString(String key, String def) {
+        int e = find(key);
+        return e < 0 ? def : stringAt(e);
+    }
+
+    private int entry(String key, ConfigrDataType type) {
+        int e = find(key);
+        if (e < 0) {
+            throw new ConfigrValidationException("Setting not found: " + key);
+        }
+        return check(key, e, type);
+    }
+
+    private int check(String key, int e, ConfigrDataType type) {
+        if (types[e] != type.ordinal()) {
+            throw new ConfigrValidationException("Setting " + key + " is " + TYPES[types[e]].getName() + ", not " + type.getName());
+        }
+        return e;
     }
 
     /**
@@ -69,7 +587,8 @@ public class ConfigrSettingsMap {
      * @return Data type.
      */
     public ConfigrDataType getType(String key) {
-        return typeMap.get(key);
+        int e = find(key);
+        return e < 0 ? null : TYPES[types[e]];
     }
 
     /**
@@ -78,14 +597,140 @@ public class ConfigrSettingsMap {
      * @return Size.
      */
     public int size() {
-        return settingsMap.size();
+        return count;
+    }
+
+    /**
+     * Get the settings whose data type or value differs from another map, including settings only one of the maps has. Values are compared unboxed; entries at the same index under the same key, as in a copy of the map, are compared without a lookup.
+     *
+     * @param other Other map, such as the previous state of this one.
+     * @return Changed settings, in the insertion order of this map, followed by settings only the other map has.
+     */
+    public List<String> getChangedSettings(ConfigrSettingsMap other) {
+        ConfigrSettingsMap a = plain();
+        ConfigrSettingsMap b = other.plain();
+        ArrayList<String> changed = new ArrayList<>();
+        int matched = 0;
+        for (int e = 0; e < a.count; e++) {
+            String key = a.keys[e];
+            int o = e < b.count && b.hashes[e] == a.hashes[e] && key.equals(b.keys[e]) ? e : b.find(key);
+            if (o < 0) {
+                changed.add(key);
+                continue;
+            }
+            matched++;
+            if (a.types[e] != b.types[o] || a.bits[e] != b.bits[o] || !Objects.equals(a.refs[e], b.refs[o])) {
+                changed.add(key);
+            }
+        }
+        if (matched < b.count) {
+            for (int o = 0; o < b.count; o++) {
+                if (a.find(b.keys[o]) < 0) {
+                    changed.add(b.keys[o]);
+                }
+            }
+        }
+        return changed;
     }
 
     /**
      * Clear the map.
      */
     public void clear() {
-        settingsMap.clear();
-        typeMap.clear();
+        Arrays.fill(keys, 0, count, null);
+        Arrays.fill(refs, 0, count, null);
+        Arrays.fill(index, 0);
+        count = 0;
+        epoch++;
+        trie = null;
+    }
+
+    /**
+     * Get a view of all settings under a dotted prefix. The view does not copy any settings and sees settings added later.
+     *
+     * @param prefix Prefix, like <code>db.replica</code>; the empty prefix selects all settings.
+     * @return View.
+     */
+    public ConfigrSubtree subtree(String prefix) {
+        return new ConfigrSubtree(this, prefix);
+    }
+
+    String keyAt(int e) {
+        return keys[e];
+    }
+
+    /**
+     * Get the trie of dotted keys, building it if the map has none yet. Maps shared between threads are immutable, so threads that build the trie at the same time build the same one.
+     *
+     * @return Root node.
+     */
+    TrieNode trie() {
+        TrieNode t = trie;
+        if (t == null) {
+            t = new TrieNode();
+            for (int e = 0; e < count; e++) {
+                t.add(keys[e], e);
+            }
+            trie = t;
+        }
+        return t;
+    }
+
+    /**
+     * Node of the trie of dotted keys. Each node lists the entries of all settings below it, in insertion order, so iterating a subtree does not walk its nodes.
+     */
+    static final class TrieNode {
+
+        LinkedHashMap<String, TrieNode> children;
+        int[] entries = new int[2];
+        int size;
+
+        void add(String key, int e) {
+            TrieNode node = this;
+            node.append(e);
+            int start = 0;
+            while (start <= key.length()) {
+                int end = key.indexOf('.', start);
+                if (end < 0) {
+                    end = key.length();
+                }
+                node = node.child(key.substring(start, end), true);
+                node.append(e);
+                start = end + 1;
+            }
+        }
+
+        private void append(int e) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = e;
+        }
+
+        TrieNode child(String segment, boolean create) {
+            TrieNode child = children == null ? null : children.get(segment);
+            if (child == null && create) {
+                if (children == null) {
+                    children = new LinkedHashMap<>();
+                }
+                child = new TrieNode();
+                children.put(segment, child);
+            }
+            return child;
+        }
+
+        TrieNode find(String prefix) {
+            TrieNode node = this;
+            int start = 0;
+            while (node != null && start < prefix.length()) {
+                int end = prefix.indexOf('.', start);
+                if (end < 0) {
+                    end = prefix.length();
+                }
+                node = node.child(prefix.substring(start, end), false);
+                start = end + 1;
+            }
+            return node;
+        }
     }
 }
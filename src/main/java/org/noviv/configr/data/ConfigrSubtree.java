@@ -0,0 +1,254 @@
+package org.noviv.configr.data;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.noviv.configr.ConfigrFile;
+
+/**
+ * View of the settings under a dotted prefix, such as all settings starting with <code>db.replica.</code>. The view copies nothing: it finds the prefix in the trie of dotted keys of the settings map and lists the settings below it, without scanning other settings. Getters take keys relative to the prefix.
+ * <p>
+ * A view of a ConfigrFile follows the file when it installs another settings map. Views of a ConfigrConcurrentSettingsMap read a snapshot of the map taken when the view was created.
+ */
+public class ConfigrSubtree {
+
+    private final ConfigrFile file;
+    private final ConfigrSettingsMap map;
+    private final String prefix;
+
+    private Binding binding;
+
+    /**
+     * Create a view of the settings of a ConfigrFile under a prefix.
+     *
+     * @param file_ ConfigrFile.
+     * @param prefix_ Prefix; the empty prefix selects all settings.
+     */
+    public ConfigrSubtree(ConfigrFile file_, String prefix_) {
+        this(file_, null, prefix_);
+    }
+
+    /**
+     * Create a view of the settings of a map under a prefix.
+     *
+     * @param map_ Settings map.
+     * @param prefix_ Prefix; the empty prefix selects all settings.
+     */
+    public ConfigrSubtree(ConfigrSettingsMap map_, String prefix_) {
+        this(null, map_.indexed() ? map_ : map_.plain(), prefix_);
+    }
+
+    private ConfigrSubtree(ConfigrFile file_, ConfigrSettingsMap map_, String prefix_) {
+        file = file_;
+        map = map_;
+        prefix = prefix_.endsWith(".") ? prefix_.substring(0, prefix_.length() - 1) : prefix_;
+    }
+
+    private Binding bind() {
+        ConfigrSettingsMap m = file == null ? map : file.getSettingsMap();
+        if (!m.indexed()) {
+            m = m.plain();
+        }
+        Binding b = binding;
+        if (b == null || b.map != m || b.epoch != m.epoch() || b.node == null) {
+            b = new Binding(m, m.epoch(), m.trie().find(prefix));
+            binding = b;
+        }
+        return b;
+    }
+
+    private String key(String relative) {
+        return prefix.isEmpty() ? relative : prefix + "." + relative;
+    }
+
+    /**
+     * Get the prefix of the view, without a trailing dot.
+     *
+     * @return Prefix.
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Get a view of the settings under a prefix relative to this view.
+     *
+     * @param relative Relative prefix.
+     * @return View.
+     */
+    public ConfigrSubtree subtree(String relative) {
+        return new ConfigrSubtree(file, map, key(relative));
+    }
+
+    /**
+     * Get the number of settings in the view.
+     *
+     * @return Size.
+     */
+    public int size() {
+        ConfigrSettingsMap.TrieNode node = bind().node;
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Get the full keys of all settings in the view, in insertion order.
+     *
+     * @return Set of settings.
+     */
+    public Set<String> getSettings() {
+        return new AbstractSet<String>() {
+
+            @Override
+            public Iterator<String> iterator() {
+                final Binding b = bind();
+                if (b.node == null) {
+                    return Collections.<String>emptyIterator();
+                }
+                final int[] entries = b.node.entries;
+                final int size = b.node.size;
+                return new Iterator<String>() {
+
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (next >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        return b.map.keyAt(entries[next++]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof String)) {
+                    return false;
+                }
+                String s = (String) o;
+                return (prefix.isEmpty() || s.equals(prefix) || s.startsWith(prefix + ".")) && bind().map.getType(s) != null;
+            }
+
+            @Override
+            public int size() {
+                return ConfigrSubtree.this.size();
+            }
+        };
+    }
+
+    /**
+     * Get the names of the segments directly below the prefix, such as the names of all replicas under <code>db.replica</code>.
+     *
+     * @return Set of segment names, in insertion order.
+     */
+    public Set<String> getChildren() {
+        ConfigrSettingsMap.TrieNode node = bind().node;
+        if (node == null || node.children == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(node.children.keySet());
+    }
+
+    /**
+     * Get the value of a setting.
+     *
+     * @param relative Setting relative to the prefix.
+     * @return Value as an object.
+     */
+    public Object getSetting(String relative) {
+        return bind().map.getSetting(key(relative));
+    }
+
+    /**
+     * Get the data type of a setting.
+     *
+     * @param relative Setting relative to the prefix.
+     * @return Data type.
+     */
+    public ConfigrDataType getSettingType(String relative) {
+        return bind().map.getType(key(relative));
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param relative Setting relative to the prefix.
+     * @return Value.
+     */
+    public int getInt(String relative) {
+        return bind().map.getInt(key(relative));
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param relative Setting relative to the prefix.
+     * @return Value.
+     */
+    public long getLong(String relative) {
+        return bind().map.getLong(key(relative));
+    }
+
+    /**
+     * Get the value of a double or integer setting.
+     *
+     * @param relative Setting relative to the prefix.
+     * @return Value.
+     */
+    public double getDouble(String relative) {
+        return bind().map.getDouble(key(relative));
+    }
+
+    /**
+     * Get the value of a boolean setting.
+     *
+     * @param relative Setting relative to the prefix.
+     * @return Value.
+     */
+    public boolean getBoolean(String relative) {
+        return bind().map.getBoolean(key(relative));
+    }
+
+    /**
+     * Get the value of a setting as a string.
+     *
+     * @param relative Setting relative to the prefix.
+     * @return Value, or null if the setting is not found or has no value.
+     */
+    public String getString(String relative) {
+        return bind().map.getString(key(relative));
+    }
+
+    @Override
+    public String toString() {
+        return prefix + getSettings();
+    }
+
+    /**
+     * Trie node of the prefix in one map. Immutable, so a binding read by another thread is always consistent.
+     */
+    private static final class Binding {
+
+        final ConfigrSettingsMap map;
+        final int epoch;
+        final ConfigrSettingsMap.TrieNode node;
+
+        Binding(ConfigrSettingsMap map_, int epoch_, ConfigrSettingsMap.TrieNode node_) {
+            map = map_;
+            epoch = epoch_;
+            node = node_;
+        }
+    }
+}
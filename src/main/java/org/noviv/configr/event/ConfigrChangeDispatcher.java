@@ -0,0 +1,328 @@
+package org.noviv.configr.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrSettingsMap;
+
+/**
+ * Delivers change events to listeners registered for a setting or for a prefix of settings. Prefix listeners are kept in a character trie, so finding the listeners of a setting costs time linear in the length of the setting, regardless of the number of listeners.
+ * <p>
+ * Registrations are copied on write: adding or removing a listener rebuilds the lookup tables, while dispatching reads them without locking. By default, events are delivered on the thread that made the change, after the change is installed.
+ */
+public class ConfigrChangeDispatcher {
+
+    private static final Executor DIRECT = new Executor() {
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final ArrayList<Registration> registrations;
+    private volatile Registry registry;
+    private volatile Executor executor;
+
+    /**
+     * Create a new dispatcher without listeners.
+     */
+    public ConfigrChangeDispatcher() {
+        registrations = new ArrayList<>();
+        registry = null;
+        executor = DIRECT;
+    }
+
+    /**
+     * Set the executor events are delivered on.
+     *
+     * @param executor_ Executor, or null to deliver events on the thread that made the change.
+     */
+    public void setExecutor(Executor executor_) {
+        executor = executor_ == null ? DIRECT : executor_;
+    }
+
+    /**
+     * Listen for changes to a setting.
+     *
+     * @param key Setting.
+     * @param listener Listener.
+     */
+    public synchronized void addListener(String key, ConfigrChangeListener listener) {
+        registrations.add(new Registration(key, false, listener));
+        rebuild();
+    }
+
+    /**
+     * Listen for changes to each of a number of settings. The lookup tables are rebuilt once for all of them.
+     *
+     * @param keys Settings.
+     * @param listener Listener.
+     */
+    public synchronized void addListener(Collection<String> keys, ConfigrChangeListener listener) {
+        for (String key : keys) {
+            registrations.add(new Registration(key, false, listener));
+        }
+        rebuild();
+    }
+
+    /**
+     * Listen for changes to all settings that start with a prefix. The empty prefix matches all settings.
+     *
+     * @param prefix Prefix.
+     * @param listener Listener.
+     */
+    public synchronized void addPrefixListener(String prefix, ConfigrChangeListener listener) {
+        registrations.add(new Registration(prefix, true, listener));
+        rebuild();
+    }
+
+    /**
+     * Remove all registrations of a listener.
+     *
+     * @param listener Listener.
+     */
+    public synchronized void removeListener(ConfigrChangeListener listener) {
+        for (int i = registrations.size() - 1; i >= 0; i--) {
+            if (registrations.get(i).listener == listener) {
+                registrations.remove(i);
+            }
+        }
+        rebuild();
+    }
+
+    private void rebuild() {
+        if (registrations.isEmpty()) {
+            registry = null;
+            return;
+        }
+        Registry next = new Registry();
+        for (Registration r : registrations) {
+            if (r.prefix) {
+                next.root.add(r.key, 0, r.listener);
+                next.prefixes = true;
+            } else {
+                ConfigrChangeListener[] list = next.exact.get(r.key);
+                next.exact.put(r.key, append(list, r.listener));
+            }
+        }
+        registry = next;
+    }
+
+    /**
+     * Check whether any listeners are registered.
+     *
+     * @return True means at least one listener is registered.
+     */
+    public boolean hasListeners() {
+        return registry != null;
+    }
+
+    /**
+     * Check whether any listener would receive a change to a setting.
+     *
+     * @param key Setting.
+     * @return True means at least one listener is registered for the setting.
+     */
+    public boolean isListening(String key) {
+        Registry r = registry;
+        return r != null && (r.exact.containsKey(key) || (r.prefixes && r.root.matches(key)));
+    }
+
+    /**
+     * Compute the changes between two maps for all settings that have listeners. With few listeners and no prefix listeners, only the settings with listeners are compared; otherwise the maps are compared unboxed once, and only the settings that changed are matched against the listeners.
+     *
+     * @param source Changed ConfigrFile.
+     * @param before Previous settings.
+     * @param after New settings.
+     * @return Changes, in the order of the new settings followed by removed settings.
+     */
+    public List<ConfigrChangeEvent> diff(ConfigrFile source, ConfigrSettingsMap before, ConfigrSettingsMap after) {
+        Registry r = registry;
+        ArrayList<ConfigrChangeEvent> events = new ArrayList<>();
+        if (r == null || before == after) {
+            return events;
+        }
+        if (!r.prefixes && 4 * r.exact.size() < before.size() + after.size()) {
+            for (String key : r.exact.keySet()) {
+                compare(source, key, before, after, events);
+            }
+            return events;
+        }
+        for (String key : after.getChangedSettings(before)) {
+            if (r.exact.containsKey(key) || (r.prefixes && r.root.matches(key))) {
+                events.add(new ConfigrChangeEvent(source, key, before.getType(key), before.getSetting(key), after.getType(key), after.getSetting(key)));
+            }
+        }
+        return events;
+    }
+
+    private static void compare(ConfigrFile source, String key, ConfigrSettingsMap before, ConfigrSettingsMap after, List<ConfigrChangeEvent> events) {
+        ConfigrDataType oldType = before.getType(key);
+        ConfigrDataType newType = after.getType(key);
+        Object oldValue = before.getSetting(key);
+        Object newValue = after.getSetting(key);
+        if (oldType != newType || !Objects.equals(oldValue, newValue)) {
+            events.add(new ConfigrChangeEvent(source, key, oldType, oldValue, newType, newValue));
+        }
+    }
+
+    /**
+     * Deliver a change to its listeners.
+     *
+     * @param event Change, or null for none.
+     */
+    public void dispatch(ConfigrChangeEvent event) {
+        if (event != null) {
+            dispatch(Arrays.asList(event));
+        }
+    }
+
+    /**
+     * Deliver changes to their listeners as one task on the executor, in order. A listener that throws does not stop delivery to other listeners.
+     *
+     * @param events Changes, or null for none.
+     */
+    public void dispatch(List<ConfigrChangeEvent> events) {
+        final Registry r = registry;
+        if (r == null || events == null || events.isEmpty()) {
+            return;
+        }
+        final List<ConfigrChangeEvent> batch = events;
+        executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                ArrayList<ConfigrChangeListener> targets = new ArrayList<>();
+                for (ConfigrChangeEvent event : batch) {
+                    targets.clear();
+                    r.collect(event.getKey(), targets);
+                    for (ConfigrChangeListener listener : targets) {
+                        try {
+                            listener.changed(event);
+                        } catch (RuntimeException e) {
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private static ConfigrChangeListener[] append(ConfigrChangeListener[] list, ConfigrChangeListener listener) {
+        if (list == null) {
+            return new ConfigrChangeListener[]{listener};
+        }
+        ConfigrChangeListener[] next = Arrays.copyOf(list, list.length + 1);
+        next[list.length] = listener;
+        return next;
+    }
+
+    /**
+     * A listener and the setting or prefix it was registered for.
+     */
+    private static final class Registration {
+
+        final String key;
+        final boolean prefix;
+        final ConfigrChangeListener listener;
+
+        Registration(String key_, boolean prefix_, ConfigrChangeListener listener_) {
+            key = key_;
+            prefix = prefix_;
+            listener = listener_;
+        }
+    }
+
+    /**
+     * Immutable lookup tables, replaced whenever the registrations change.
+     */
+    private static final class Registry {
+
+        final HashMap<String, ConfigrChangeListener[]> exact = new HashMap<>();
+        final Node root = new Node();
+        boolean prefixes;
+
+        void collect(String key, List<ConfigrChangeListener> targets) {
+            ConfigrChangeListener[] list = exact.get(key);
+            if (list != null) {
+                targets.addAll(Arrays.asList(list));
+            }
+            if (prefixes) {
+                root.collect(key, targets);
+            }
+        }
+    }
+
+    /**
+     * Node of the prefix trie. Children are kept sorted by character.
+     */
+    private static final class Node {
+
+        char[] chars = new char[0];
+        Node[] children = new Node[0];
+        ConfigrChangeListener[] listeners;
+
+        void add(String prefix, int depth, ConfigrChangeListener listener) {
+            if (depth == prefix.length()) {
+                listeners = append(listeners, listener);
+                return;
+            }
+            char c = prefix.charAt(depth);
+            int i = Arrays.binarySearch(chars, c);
+            if (i < 0) {
+                i = -i - 1;
+                char[] nextChars = new char[chars.length + 1];
+                Node[] nextChildren = new Node[children.length + 1];
+                System.arraycopy(chars, 0, nextChars, 0, i);
+                System.arraycopy(children, 0, nextChildren, 0, i);
+                nextChars[i] = c;
+                nextChildren[i] = new Node();
+                System.arraycopy(chars, i, nextChars, i + 1, chars.length - i);
+                System.arraycopy(children, i, nextChildren, i + 1, children.length - i);
+                chars = nextChars;
+                children = nextChildren;
+            }
+            children[i].add(prefix, depth + 1, listener);
+        }
+
+        boolean matches(String key) {
+            Node node = this;
+            for (int depth = 0; ; depth++) {
+                if (node.listeners != null) {
+                    return true;
+                }
+                if (depth == key.length()) {
+                    return false;
+                }
+                int i = Arrays.binarySearch(node.chars, key.charAt(depth));
+                if (i < 0) {
+                    return false;
+                }
+                node = node.children[i];
+            }
+        }
+
+        void collect(String key, List<ConfigrChangeListener> targets) {
+            Node node = this;
+            for (int depth = 0; ; depth++) {
+                if (node.listeners != null) {
+                    targets.addAll(Arrays.asList(node.listeners));
+                }
+                if (depth == key.length()) {
+                    return;
+                }
+                int i = Arrays.binarySearch(node.chars, key.charAt(depth));
+                if (i < 0) {
+                    return;
+                }
+                node = node.children[i];
+            }
+        }
+    }
+}
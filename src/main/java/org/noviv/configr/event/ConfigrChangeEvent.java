@@ -0,0 +1,95 @@
+package org.noviv.configr.event;
+
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.data.ConfigrDataType;
+
+/**
+ * A change to one setting of a ConfigrFile. A setting that was added has no old data type; a setting that was removed has no new data type.
+ */
+public class ConfigrChangeEvent {
+
+    private final ConfigrFile source;
+    private final String key;
+    private final ConfigrDataType oldType;
+    private final Object oldValue;
+    private final ConfigrDataType newType;
+    private final Object newValue;
+
+    /**
+     * Create a new change event.
+     *
+     * @param source_ Changed ConfigrFile.
+     * @param key_ Setting.
+     * @param oldType_ Previous data type, or null if the setting was added.
+     * @param oldValue_ Previous value.
+     * @param newType_ New data type, or null if the setting was removed.
+     * @param newValue_ New value.
+     */
+    public ConfigrChangeEvent(ConfigrFile source_, String key_, ConfigrDataType oldType_, Object oldValue_, ConfigrDataType newType_, Object newValue_) {
+        source = source_;
+        key = key_;
+        oldType = oldType_;
+        oldValue = oldValue_;
+        newType = newType_;
+        newValue = newValue_;
+    }
+
+    /**
+     * Get the changed ConfigrFile.
+     *
+     * @return ConfigrFile.
+     */
+    public ConfigrFile getSource() {
+        return source;
+    }
+
+    /**
+     * Get the changed setting.
+     *
+     * @return Setting.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the previous data type.
+     *
+     * @return Data type, or null if the setting was added.
+     */
+    public ConfigrDataType getOldType() {
+        return oldType;
+    }
+
+    /**
+     * Get the previous value.
+     *
+     * @return Value.
+     */
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * Get the new data type.
+     *
+     * @return Data type, or null if the setting was removed.
+     */
+    public ConfigrDataType getNewType() {
+        return newType;
+    }
+
+    /**
+     * Get the new value.
+     *
+     * @return Value.
+     */
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    @Override
+    public String toString() {
+        return key + ": " + oldValue + "(" + oldType + ") -> " + newValue + "(" + newType + ")";
+    }
+}
@@ -0,0 +1,14 @@
+package org.noviv.configr.event;
+
+/**
+ * Listener for changes to the settings of a ConfigrFile.
+ */
+public interface ConfigrChangeListener {
+
+    /**
+     * Called after a setting changed.
+     *
+     * @param event Change.
+     */
+    void changed(ConfigrChangeEvent event);
+}
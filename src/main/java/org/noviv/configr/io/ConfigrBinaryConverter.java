@@ -0,0 +1,74 @@
+package org.noviv.configr.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * Converts configs between the text <code>.cfgr</code> format and the binary <code>.cfgrb</code> format.
+ */
+public class ConfigrBinaryConverter {
+
+    private ConfigrBinaryConverter() {
+    }
+
+    /**
+     * Convert a text config to a binary config with one section.
+     *
+     * @param source Text config.
+     * @param target Binary config.
+     * @throws FileNotFoundException Thrown if the source cannot be found/read by the JVM.
+     */
+    public static void toBinary(File source, File target) throws FileNotFoundException {
+        toBinary(new ConfigrFile[]{new ConfigrReadContext(source).getConfigrFile()}, target);
+    }
+
+    /**
+     * Write ConfigrFile objects to a binary config, one section each. Files imported through a ConfigrImportContext keep their sections this way.
+     *
+     * @param files ConfigrFile objects.
+     * @param target Binary config.
+     */
+    public static void toBinary(ConfigrFile[] files, File target) {
+        ConfigrBinaryWriteContext write = new ConfigrBinaryWriteContext(target);
+        for (ConfigrFile file : files) {
+            write.add(file);
+        }
+        write.flush();
+    }
+
+    /**
+     * Convert a binary config with one section to a text config.
+     *
+     * @param source Binary config.
+     * @param target Text config.
+     * @throws FileNotFoundException Thrown if the source cannot be found/read by the JVM.
+     */
+    public static void toText(File source, File target) throws FileNotFoundException {
+        ConfigrBinaryReadContext read = new ConfigrBinaryReadContext(source);
+        String[] sections = read.getSectionNames();
+        if (sections.length != 1) {
+            throw new ConfigrValidationException("Binary config has " + sections.length + " sections, select one to convert.");
+        }
+        toText(read, sections[0], target);
+    }
+
+    /**
+     * Convert one section of a binary config to a text config.
+     *
+     * @param source Binary config.
+     * @param section Section name.
+     * @param target Text config.
+     * @throws FileNotFoundException Thrown if the source cannot be found/read by the JVM.
+     */
+    public static void toText(File source, String section, File target) throws FileNotFoundException {
+        toText(new ConfigrBinaryReadContext(source), section, target);
+    }
+
+    private static void toText(ConfigrBinaryReadContext read, String section, File target) {
+        ConfigrFile file = new ConfigrFile(section, target.getPath());
+        file.setAll(read.getSettings(section));
+        file.write(true);
+    }
+}
@@ -0,0 +1,377 @@
+package org.noviv.configr.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import org.noviv.configr.Configr;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.exceptions.ConfigrIOException;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * The context in which a binary <code>.cfgrb</code> file is read. The file is mapped and only its header and section directory are read when the context is created; single settings are then looked up through the key index of their section without parsing any other setting. Lookups do not change any state and may be made from several threads.
+ * <p>
+ * The directory is checked against the size of the file when the context is created, and every offset and length read from an index or record is checked before it is followed, so a corrupt file is reported through a ConfigrValidationException.
+ */
+public class ConfigrBinaryReadContext {
+
+    private static final int MAX_HEAD = 256;
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final String[] sectionNames;
+    private final HashMap<String, Integer> sectionIndex;
+    private final int directory;
+
+    /**
+     * Create a new binary read context.
+     *
+     * @param file_ File.
+     * @throws FileNotFoundException Thrown if the file cannot be found/read by the JVM.
+     */
+    public ConfigrBinaryReadContext(File file_) throws FileNotFoundException {
+        file = file_;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ConfigrIOException("File too large to map: " + file.getName());
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(e.getMessage());
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not map file: " + e.getMessage());
+        }
+
+        int end = 0;
+        while (end < buffer.limit() && end < MAX_HEAD && buffer.get(end) != '\n') {
+            end++;
+        }
+        String head = decode(0, end);
+        if (end == buffer.limit() || !Configr.validateCheckHead(head)) {
+            throw new ConfigrValidationException("Invalid Configr check head: " + head + " (Should be: " + Configr.getCheckHead() + ")");
+        }
+        if (buffer.limit() < end + 9) {
+            throw new ConfigrValidationException("Truncated binary config: " + file.getName());
+        }
+        int version = buffer.getInt(end + 1);
+        if (version != ConfigrBinaryWriteContext.FORMAT_VERSION) {
+            throw new ConfigrValidationException("Unsupported binary config version " + version);
+        }
+        int count = buffer.getInt(end + 5);
+        directory = end + 9;
+        if (count < 0 || directory + (long) count * ConfigrBinaryWriteContext.DIRECTORY_ENTRY > buffer.limit()) {
+            throw new ConfigrValidationException("Truncated binary config: " + file.getName());
+        }
+        sectionNames = new String[count];
+        sectionIndex = new HashMap<>();
+        for (int s = 0; s < count; s++) {
+            int entry = directory + s * ConfigrBinaryWriteContext.DIRECTORY_ENTRY;
+            int settings = buffer.getInt(entry + 8);
+            int slots = buffer.getInt(entry + 16);
+            if (settings < 0 || slots <= settings || Integer.bitCount(slots) != 1) {
+                throw corrupt();
+            }
+            check(buffer.getInt(entry + 12), (long) slots * ConfigrBinaryWriteContext.INDEX_SLOT);
+            check(buffer.getInt(entry + 20), 0);
+            sectionNames[s] = decode(buffer.getInt(entry), buffer.getInt(entry + 4));
+            if (!sectionIndex.containsKey(sectionNames[s])) {
+                sectionIndex.put(sectionNames[s], s);
+            }
+        }
+    }
+
+    private ConfigrValidationException corrupt() {
+        return new ConfigrValidationException("Corrupt binary config: " + file.getName());
+    }
+
+    /**
+     * Check that a range lies within the file.
+     *
+     * @return Offset of the range.
+     */
+    private int check(int offset, long length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.limit()) {
+            throw corrupt();
+        }
+        return offset;
+    }
+
+    private String decode(int offset, int length) {
+        check(offset, length);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the names of all sections, in the order they were written.
+     *
+     * @return Section names.
+     */
+    public String[] getSectionNames() {
+        return sectionNames.clone();
+    }
+
+    private int section(String name) {
+        Integer s = sectionIndex.get(name);
+        if (s == null) {
+            throw new ConfigrValidationException("Section not found: " + name);
+        }
+        return directory + s * ConfigrBinaryWriteContext.DIRECTORY_ENTRY;
+    }
+
+    /**
+     * Find the record of a setting. Returns the offset of its type code, or -1 if the setting is not found.
+     */
+    private int find(String section, String key) {
+        int entry = section(section);
+        int indexOffset = buffer.getInt(entry + 12);
+        int mask = buffer.getInt(entry + 16) - 1;
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int h = ConfigrBinaryWriteContext.hash(key);
+        int i = h & mask;
+        int record;
+        for (int probe = 0; probe <= mask && (record = buffer.getInt(indexOffset + i * ConfigrBinaryWriteContext.INDEX_SLOT + 4)) != 0; probe++) {
+            if (buffer.getInt(indexOffset + i * ConfigrBinaryWriteContext.INDEX_SLOT) == h && matches(check(record, 4), keyBytes)) {
+                return check(record + 4 + keyBytes.length, 1);
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean matches(int record, byte[] keyBytes) {
+        if (buffer.getInt(record) != keyBytes.length) {
+            return false;
+        }
+        check(record + 4, keyBytes.length);
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (buffer.get(record + 4 + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ConfigrDataType type(byte code) {
+        switch (code) {
+            case ConfigrBinaryWriteContext.TYPE_STRING:
+                return ConfigrDataType.STRING;
+            case ConfigrBinaryWriteContext.TYPE_BOOLEAN:
+                return ConfigrDataType.BOOLEAN;
+            case ConfigrBinaryWriteContext.TYPE_INTEGER:
+                return ConfigrDataType.INTEGER;
+            case ConfigrBinaryWriteContext.TYPE_DOUBLE:
+                return ConfigrDataType.DOUBLE;
+            case ConfigrBinaryWriteContext.TYPE_NULL:
+                return ConfigrDataType.NULL;
+            default:
+                throw new ConfigrValidationException("Invalid type code " + code);
+        }
+    }
+
+    private int value(String section, String key, ConfigrDataType expected) {
+        int v = find(section, key);
+        if (v < 0) {
+            throw new ConfigrValidationException("Setting not found: " + key);
+        }
+        ConfigrDataType type = type(buffer.get(v));
+        if (type != expected) {
+            throw new ConfigrValidationException("Setting " + key + " is " + type.getName() + ", not " + expected.getName());
+        }
+        return check(v + 1, size(type));
+    }
+
+    private static int size(ConfigrDataType type) {
+        switch (type) {
+            case INTEGER:
+            case DOUBLE:
+                return 8;
+            case BOOLEAN:
+                return 1;
+            case STRING:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Get the data type of a setting.
+     *
+     * @param section Section name.
+     * @param key Setting.
+     * @return Data type, or null if the setting is not found.
+     */
+    public ConfigrDataType getType(String section, String key) {
+        int v = find(section, key);
+        return v < 0 ? null : type(buffer.get(v));
+    }
+
+    /**
+     * Get the value of a setting. Integer, double and boolean values are boxed; use the typed getters to avoid this. Integer values are boxed as by ConfigrFile.getSetting: as an Integer if they fit in an int, and as a Long otherwise.
+     *
+     * @param section Section name.
+     * @param key Setting.
+     * @return Value as an object, or null if the setting is not found.
+     */
+    public Object getSetting(String section, String key) {
+        int v = find(section, key);
+        if (v < 0) {
+            return null;
+        }
+        ConfigrDataType type = type(buffer.get(v));
+        check(v + 1, size(type));
+        switch (type) {
+            case INTEGER:
+                long value = buffer.getLong(v + 1);
+                if (value == (int) value) {
+                    return (int) value;
+                }
+                return value;
+            case DOUBLE:
+                return buffer.getDouble(v + 1);
+            case BOOLEAN:
+                return buffer.get(v + 1) != 0;
+            case STRING:
+                return string(v + 1);
+            default:
+                return null;
+        }
+    }
+
+    private String string(int offset) {
+        int length = buffer.getInt(offset);
+        return length < 0 ? null : decode(offset + 4, length);
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param section Section name.
+     * @param key Setting.
+     * @return Value.
+     */
+    public long getLong(String section, String key) {
+        return buffer.getLong(value(section, key, ConfigrDataType.INTEGER));
+    }
+
+    /**
+     * Get the value of an integer setting.
+     *
+     * @param section Section name.
+     * @param key Setting.
+     * @return Value.
+     */
+    public int getInt(String section, String key) {
+        long value = getLong(section, key);
+        if (value != (int) value) {
+            throw new ConfigrValidationException("Setting " + key + " is out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Get the value of a double setting.
+     *
+     * @param section Section name.
+     * @param key Setting.
+     * @return Value.
+     */
+    public double getDouble(String section, String key) {
+        return buffer.getDouble(value(section, key, ConfigrDataType.DOUBLE));
+    }
+
+    /**
+     * Get the value of a boolean setting.
+     *
+     * @param section Section name.
+     * @param key Setting.
+     * @return Value.
+     */
+    public boolean getBoolean(String section, String key) {
+        return buffer.get(value(section, key, ConfigrDataType.BOOLEAN)) != 0;
+    }
+
+    /**
+     * Get the value of a setting as a string. String values are returned as stored; other values are converted.
+     *
+     * @param section Section name.
+     * @param key Setting.
+     * @return Value, or null if the setting is not found or has no value.
+     */
+    public String getString(String section, String key) {
+        Object value = getSetting(section, key);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Read all settings of a section, in the order they were written.
+     *
+     * @param section Section name.
+     * @return Settings.
+     */
+    public ConfigrSettingsMap getSettings(String section) {
+        return settingsAt(section(section));
+    }
+
+    private ConfigrSettingsMap settingsAt(int entry) {
+        int count = buffer.getInt(entry + 8);
+        int offset = buffer.getInt(entry + 20);
+        ConfigrSettingsMap settings = new ConfigrSettingsMap(count);
+        for (int e = 0; e < count; e++) {
+            int keyLength = buffer.getInt(check(offset, 4));
+            String key = decode(offset + 4, keyLength);
+            offset += 4 + keyLength;
+            ConfigrDataType type = type(buffer.get(check(offset++, 1)));
+            check(offset, size(type));
+            switch (type) {
+                case INTEGER:
+                    settings.putLong(key, buffer.getLong(offset));
+                    offset += 8;
+                    break;
+                case DOUBLE:
+                    settings.putDouble(key, buffer.getDouble(offset));
+                    offset += 8;
+                    break;
+                case BOOLEAN:
+                    settings.putBoolean(key, buffer.get(offset) != 0);
+                    offset += 1;
+                    break;
+                case STRING:
+                    int length = buffer.getInt(offset);
+                    settings.putString(key, string(offset));
+                    offset += 4 + Math.max(length, 0);
+                    break;
+                default:
+                    settings.put(key, type);
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Read all sections as ConfigrFile objects, in the order they were written.
+     *
+     * @return Array of ConfigrFile objects.
+     */
+    public ConfigrFile[] getConfigrFiles() {
+        ConfigrFile[] files = new ConfigrFile[sectionNames.length];
+        for (int s = 0; s < files.length; s++) {
+            int entry = directory + s * ConfigrBinaryWriteContext.DIRECTORY_ENTRY;
+            files[s] = new ConfigrFile(sectionNames[s]);
+            files[s].setAll(settingsAt(entry));
+        }
+        return files;
+    }
+}
@@ -0,0 +1,245 @@
+package org.noviv.configr.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import org.noviv.configr.Configr;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.exceptions.ConfigrBufferException;
+import org.noviv.configr.exceptions.ConfigrIOException;
+
+/**
+ * The context in which configs are written to the system in the binary <code>.cfgrb</code> format. Must only be flushed once.
+ * <p>
+ * The file starts with the check-head as a line of text, followed by the format version and the number of sections. A directory then holds, for each section, the offsets of its name, its key index and its records. The key index is an open-addressing table of (hash, record offset) pairs, so a reader finds a key with a few probes. Records hold the key, a type code, and the value: integers and doubles as 8 bytes, booleans as 1 byte, strings as a length and UTF-8 bytes. All numbers are big-endian, and the records of a section are in insertion order.
+ */
+public class ConfigrBinaryWriteContext {
+
+    static final int FORMAT_VERSION = 1;
+    static final int DIRECTORY_ENTRY = 24;
+    static final int INDEX_SLOT = 8;
+
+    static final byte TYPE_STRING = 0;
+    static final byte TYPE_BOOLEAN = 1;
+    static final byte TYPE_INTEGER = 2;
+    static final byte TYPE_DOUBLE = 3;
+    static final byte TYPE_NULL = 4;
+
+    private final File target;
+    private final ArrayList<String> names;
+    private final ArrayList<ConfigrSettingsMap> sections;
+    private boolean flushed;
+
+    /**
+     * Create a new binary write context.
+     *
+     * @param target_ Target file.
+     */
+    public ConfigrBinaryWriteContext(File target_) {
+        target = target_;
+        names = new ArrayList<>();
+        sections = new ArrayList<>();
+    }
+
+    /**
+     * Add a section with the name and settings of a ConfigrFile.
+     *
+     * @param file ConfigrFile.
+     */
+    public void add(ConfigrFile file) {
+        ConfigrSettingsMap settings = new ConfigrSettingsMap(file.getSettings().size());
+        for (String key : file.getSettings()) {
+            settings.put(key, file.getSetting(key), file.getSettingType(key));
+        }
+        add(file.getName(), settings);
+    }
+
+    /**
+     * Add a section.
+     *
+     * @param name Section name.
+     * @param settings Settings. The map must not be modified until the context is flushed.
+     */
+    public void add(String name, ConfigrSettingsMap settings) {
+        if (flushed) {
+            throw new ConfigrBufferException("Buffer already flushed, cannot write.");
+        }
+        names.add(name);
+        sections.add(settings);
+    }
+
+    /**
+     * Write all sections to a temporary file next to the target, and atomically replace the target with it.
+     */
+    public void flush() {
+        if (flushed) {
+            throw new ConfigrBufferException("Buffer already flushed, cannot write.");
+        }
+        flushed = true;
+        ByteBuffer buffer = encode();
+        Path path = target.getAbsoluteFile().toPath();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(path.getParent(), "." + path.getFileName(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            ConfigrWriteContext.replace(temp, path);
+        } catch (IOException e) {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+            throw new ConfigrIOException("Could not write " + path + ": " + e.getMessage());
+        }
+    }
+
+    private ByteBuffer encode() {
+        byte[] head = (Configr.getCheckHead() + "\n").getBytes(StandardCharsets.UTF_8);
+        int count = sections.size();
+        byte[][] nameBytes = new byte[count][];
+        byte[][][] keyBytes = new byte[count][][];
+        byte[][][] stringBytes = new byte[count][][];
+        int[] indexSizes = new int[count];
+
+        long size = head.length + 8 + (long) count * DIRECTORY_ENTRY;
+        for (int s = 0; s < count; s++) {
+            ConfigrSettingsMap settings = sections.get(s);
+            nameBytes[s] = names.get(s).getBytes(StandardCharsets.UTF_8);
+            int entries = settings.size();
+            keyBytes[s] = new byte[entries][];
+            stringBytes[s] = new byte[entries][];
+            indexSizes[s] = indexSize(entries);
+            size += nameBytes[s].length + (long) indexSizes[s] * INDEX_SLOT;
+            int e = 0;
+            for (String key : settings.getSettings()) {
+                keyBytes[s][e] = key.getBytes(StandardCharsets.UTF_8);
+                size += 4 + keyBytes[s][e].length + 1;
+                switch (settings.getType(key)) {
+                    case INTEGER:
+                    case DOUBLE:
+                        size += 8;
+                        break;
+                    case BOOLEAN:
+                        size += 1;
+                        break;
+                    case STRING:
+                        String value = settings.getString(key);
+                        stringBytes[s][e] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+                        size += 4 + (value == null ? 0 : stringBytes[s][e].length);
+                        break;
+                    default:
+                }
+                e++;
+            }
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new ConfigrIOException("Configs too large for the binary format: " + size + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.put(head);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(count);
+        int directory = buffer.position();
+        buffer.position(directory + count * DIRECTORY_ENTRY);
+        for (int s = 0; s < count; s++) {
+            ConfigrSettingsMap settings = sections.get(s);
+            int nameOffset = buffer.position();
+            buffer.put(nameBytes[s]);
+            int indexOffset = buffer.position();
+            int mask = indexSizes[s] - 1;
+            int recordsOffset = indexOffset + indexSizes[s] * INDEX_SLOT;
+            buffer.position(recordsOffset);
+
+            int e = 0;
+            for (String key : settings.getSettings()) {
+                int h = hash(key);
+                int i = h & mask;
+                while (buffer.getInt(indexOffset + i * INDEX_SLOT + 4) != 0) {
+                    i = (i + 1) & mask;
+                }
+                buffer.putInt(indexOffset + i * INDEX_SLOT, h);
+                buffer.putInt(indexOffset + i * INDEX_SLOT + 4, buffer.position());
+
+                buffer.putInt(keyBytes[s][e].length);
+                buffer.put(keyBytes[s][e]);
+                ConfigrDataType type = settings.getType(key);
+                buffer.put(code(type));
+                switch (type) {
+                    case INTEGER:
+                        buffer.putLong(settings.getLong(key));
+                        break;
+                    case DOUBLE:
+                        buffer.putDouble(settings.getDouble(key));
+                        break;
+                    case BOOLEAN:
+                        buffer.put((byte) (settings.getBoolean(key) ? 1 : 0));
+                        break;
+                    case STRING:
+                        byte[] value = stringBytes[s][e];
+                        if (value == null) {
+                            buffer.putInt(-1);
+                        } else {
+                            buffer.putInt(value.length);
+                            buffer.put(value);
+                        }
+                        break;
+                    default:
+                }
+                e++;
+            }
+
+            int entry = directory + s * DIRECTORY_ENTRY;
+            buffer.putInt(entry, nameOffset);
+            buffer.putInt(entry + 4, nameBytes[s].length);
+            buffer.putInt(entry + 8, settings.size());
+            buffer.putInt(entry + 12, indexOffset);
+            buffer.putInt(entry + 16, indexSizes[s]);
+            buffer.putInt(entry + 20, recordsOffset);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int indexSize(int entries) {
+        int size = 2;
+        while (size < entries * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    static byte code(ConfigrDataType type) {
+        switch (type) {
+            case STRING:
+                return TYPE_STRING;
+            case BOOLEAN:
+                return TYPE_BOOLEAN;
+            case INTEGER:
+                return TYPE_INTEGER;
+            case DOUBLE:
+                return TYPE_DOUBLE;
+            default:
+                return TYPE_NULL;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.noviv.configr.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tokenizer reading directly from a byte buffer, such as a memory-mapped file. Lines are never copied; strings are only decoded when a token getter is called.
+ */
+public class ConfigrBufferTokenizer extends ConfigrTokenizer {
+
+    private ByteBuffer buffer;
+    private final int end;
+    private int pos;
+    private byte[] scratch;
+
+    /**
+     * Create a new buffer tokenizer with the default separator '='.
+     *
+     * @param buffer_ Buffer, read from its position to its limit.
+     */
+    public ConfigrBufferTokenizer(ByteBuffer buffer_) {
+        this(buffer_, "=");
+    }
+
+    /**
+     * Create a new buffer tokenizer with a custom separator.
+     *
+     * @param buffer_ Buffer, read from its position to its limit.
+     * @param separator_ Separator between setting and value.
+     */
+    public ConfigrBufferTokenizer(ByteBuffer buffer_, String separator_) {
+        super(separator_);
+        buffer = buffer_;
+        pos = buffer.position();
+        end = buffer.limit();
+    }
+
+    @Override
+    protected boolean readLine() {
+        if (pos >= end) {
+            return false;
+        }
+        int scan = pos;
+        while (scan < end) {
+            byte b = buffer.get(scan);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            scan++;
+        }
+        lineStart = pos;
+        lineEnd = scan;
+        lineOffset = pos;
+        if (scan < end && buffer.get(scan) == '\r' && scan + 1 < end && buffer.get(scan + 1) == '\n') {
+            scan++;
+        }
+        pos = scan + 1;
+        return true;
+    }
+
+    @Override
+    protected int byteAt(int index) {
+        return buffer.get(index) & 0xFF;
+    }
+
+    @Override
+    protected String decode(int from, int to) {
+        int length = to - from;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + from, length, StandardCharsets.UTF_8);
+        }
+        if (scratch == null || scratch.length < length) {
+            scratch = new byte[Math.max(length, 64)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(from + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+    }
+}
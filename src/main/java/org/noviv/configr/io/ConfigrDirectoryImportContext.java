@@ -0,0 +1,326 @@
+package org.noviv.configr.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.ConfigrLayeredConfig;
+import org.noviv.configr.exceptions.ConfigrBufferException;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * The context in which all matching files in a directory tree, such as the fragments in a <code>conf.d</code> directory, are imported. Files are imported concurrently, since loading many small files is dominated by waiting for I/O, and the results are put in the order of their paths, independent of the order in which the imports finish. By default each file is imported on a virtual thread of its own where the runtime has them, and on a bounded pool of threads otherwise.
+ * <p>
+ * A file that cannot be imported does not abort the load; its error is collected and the other files are still imported.
+ */
+public class ConfigrDirectoryImportContext {
+
+    private static final int DEFAULT_PARALLELISM = Math.min(32, 4 * Runtime.getRuntime().availableProcessors());
+    private static final Method VIRTUAL_THREADS = virtualThreads();
+
+    private final File directory;
+    private final String glob;
+    private final PathMatcher matcher;
+    private final Executor executor;
+    private final int parallelism;
+
+    private volatile Load load;
+
+    /**
+     * Create a new directory import context for all <code>.cfgr</code> files.
+     *
+     * @param directory_ Directory.
+     * @throws FileNotFoundException Thrown if the directory cannot be found by the JVM.
+     */
+    public ConfigrDirectoryImportContext(File directory_) throws FileNotFoundException {
+        this(directory_, "*.cfgr");
+    }
+
+    /**
+     * Create a new directory import context for all files matching a glob.
+     *
+     * @param directory_ Directory.
+     * @param glob_ Glob, matched against the name and against the path relative to the directory of each file.
+     * @throws FileNotFoundException Thrown if the directory cannot be found by the JVM.
+     */
+    public ConfigrDirectoryImportContext(File directory_, String glob_) throws FileNotFoundException {
+        this(directory_, glob_, null, 0);
+    }
+
+    /**
+     * Create a new directory import context that imports files on a bounded number of threads of its own.
+     *
+     * @param directory_ Directory.
+     * @param glob_ Glob, matched against the name and against the path relative to the directory of each file.
+     * @param parallelism_ Maximum number of files imported at once.
+     * @throws FileNotFoundException Thrown if the directory cannot be found by the JVM.
+     */
+    public ConfigrDirectoryImportContext(File directory_, String glob_, int parallelism_) throws FileNotFoundException {
+        this(directory_, glob_, null, requirePositive(parallelism_));
+    }
+
+    /**
+     * Create a new directory import context that imports files on an executor, for example one that runs each task on a virtual thread.
+     *
+     * @param directory_ Directory.
+     * @param glob_ Glob, matched against the name and against the path relative to the directory of each file.
+     * @param executor_ Executor.
+     * @throws FileNotFoundException Thrown if the directory cannot be found by the JVM.
+     */
+    public ConfigrDirectoryImportContext(File directory_, String glob_, Executor executor_) throws FileNotFoundException {
+        this(directory_, glob_, require(executor_), 0);
+    }
+
+    private static Executor require(Executor executor) {
+        if (executor == null) {
+            throw new ConfigrValidationException("Executor must not be null.");
+        }
+        return executor;
+    }
+
+    private static int requirePositive(int parallelism) {
+        if (parallelism < 1) {
+            throw new ConfigrValidationException("Parallelism must be positive: " + parallelism);
+        }
+        return parallelism;
+    }
+
+    private ConfigrDirectoryImportContext(File directory_, String glob_, Executor executor_, int parallelism_) throws FileNotFoundException {
+        if (!directory_.isDirectory()) {
+            throw new FileNotFoundException("Directory not found: " + directory_);
+        }
+        directory = directory_;
+        glob = glob_;
+        matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        executor = executor_;
+        parallelism = parallelism_;
+        refresh();
+    }
+
+    /**
+     * Import the directory again. Files that were added, removed or changed since the last import are picked up.
+     *
+     * @return All imported objects.
+     */
+    public synchronized ConfigrFile[] refresh() {
+        TreeMap<File, Exception> errors = new TreeMap<>();
+        List<Path> paths = scan(errors);
+        Collections.sort(paths);
+
+        ArrayList<FutureTask<ConfigrFile[]>> tasks = new ArrayList<>(paths.size());
+        for (final Path path : paths) {
+            tasks.add(new FutureTask<>(new Callable<ConfigrFile[]>() {
+
+                @Override
+                public ConfigrFile[] call() throws Exception {
+                    return new ConfigrImportContext(path.toFile()).getImportedFiles();
+                }
+            }));
+        }
+        ExecutorService own = null;
+        Executor runner = executor;
+        if (runner == null) {
+            own = parallelism == 0 ? virtualPool(tasks.size()) : pool(Math.min(parallelism, Math.max(1, tasks.size())));
+            runner = own;
+        }
+        try {
+            for (FutureTask<ConfigrFile[]> task : tasks) {
+                runner.execute(task);
+            }
+            ArrayList<File> files = new ArrayList<>();
+            ArrayList<ConfigrFile> imported = new ArrayList<>();
+            int[] counts = new int[tasks.size()];
+            for (int i = 0; i < tasks.size(); i++) {
+                File file = paths.get(i).toFile();
+                try {
+                    ConfigrFile[] result = tasks.get(i).get();
+                    Collections.addAll(imported, result);
+                    counts[files.size()] = result.length;
+                    files.add(file);
+                } catch (ExecutionException e) {
+                    errors.put(file, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ConfigrBufferException("Directory import interrupted: " + directory);
+                }
+            }
+            load = new Load(files.toArray(new File[files.size()]), imported.toArray(new ConfigrFile[imported.size()]), Arrays.copyOf(counts, files.size()), Collections.unmodifiableMap(errors));
+        } finally {
+            if (own != null) {
+                own.shutdownNow();
+            }
+        }
+        return getImportedFiles();
+    }
+
+    private List<Path> scan(final Map<File, Exception> errors) {
+        final Path root = directory.toPath();
+        final ArrayList<Path> paths = new ArrayList<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (!attrs.isDirectory() && (matcher.matches(file.getFileName()) || matcher.matches(root.relativize(file)))) {
+                        paths.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    errors.put(file.toFile(), e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            errors.put(directory, e);
+        }
+        return paths;
+    }
+
+    private static Method virtualThreads() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService virtualPool(int tasks) {
+        if (VIRTUAL_THREADS != null) {
+            try {
+                return (ExecutorService) VIRTUAL_THREADS.invoke(null);
+            } catch (ReflectiveOperationException e) {
+            }
+        }
+        return pool(Math.min(DEFAULT_PARALLELISM, Math.max(1, tasks)));
+    }
+
+    private static ThreadPoolExecutor pool(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Configr directory import");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Get the imported objects of all files, ordered by the path of their file and then as they appear in the file.
+     *
+     * @return Array of imported objects.
+     */
+    public ConfigrFile[] getImportedFiles() {
+        return load.imported.clone();
+    }
+
+    /**
+     * Get the files that were imported, ordered by path.
+     *
+     * @return Files.
+     */
+    public File[] getFiles() {
+        return load.files.clone();
+    }
+
+    /**
+     * Get the errors of the files that could not be imported or visited.
+     *
+     * @return Errors by file, ordered by path.
+     */
+    public Map<File, Exception> getErrors() {
+        return load.errors;
+    }
+
+    /**
+     * Check whether every matching file was imported.
+     *
+     * @return True means no errors were collected.
+     */
+    public boolean isComplete() {
+        return load.errors.isEmpty();
+    }
+
+    /**
+     * Create a layered config of all imported objects, in which later files override earlier ones, as is usual for <code>conf.d</code> fragments. Within a file, the first section that has a setting wins, as for {@link org.noviv.configr.Configr#getSetting(String, String)}. Close it when it is no longer needed.
+     *
+     * @return Layered config.
+     */
+    public ConfigrLayeredConfig getLayeredConfig() {
+        Load l = load;
+        ArrayList<ConfigrFile> layers = new ArrayList<>(l.imported.length);
+        int end = 0;
+        for (int count : l.counts) {
+            int start = end;
+            end += count;
+            for (int i = end - 1; i >= start; i--) {
+                layers.add(l.imported[i]);
+            }
+        }
+        return new ConfigrLayeredConfig(layers);
+    }
+
+    /**
+     * Get the directory.
+     *
+     * @return Directory.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the glob.
+     *
+     * @return Glob.
+     */
+    public String getGlob() {
+        return glob;
+    }
+
+    /**
+     * Result of one import of the directory, published at once.
+     */
+    private static final class Load {
+
+        final File[] files;
+        final ConfigrFile[] imported;
+        final int[] counts;
+        final Map<File, Exception> errors;
+
+        Load(File[] files_, ConfigrFile[] imported_, int[] counts_, Map<File, Exception> errors_) {
+            files = files_;
+            imported = imported_;
+            counts = counts_;
+            errors = errors_;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.noviv.configr.io;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.ConfigrLayeredConfig;
+import org.noviv.configr.exceptions.ConfigrIOException;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+import org.noviv.configr.metrics.ConfigrMetrics;
+import org.noviv.configr.metrics.ConfigrMetricsSink;
+
+/**
+ * Bounded cache of imported files, keyed by canonical path. A cached import is reused as long as the size and modification time of the file and of its journal are unchanged. Files modified within the modification time granularity of their import are also checked against a CRC32 of their content, since a same-size rewrite in that window would not change either value.
+ * <p>
+ * The ConfigrFile objects returned are shared between all callers and must not be modified.
+ */
+public class ConfigrFileCache {
+
+    private static final long MTIME_GRANULARITY = 2000;
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxEntries_ Maximum number of cached files. The least recently used file is evicted first.
+     */
+    public ConfigrFileCache(int maxEntries_) {
+        if (maxEntries_ < 1) {
+            throw new ConfigrValidationException("Cache size must be positive: " + maxEntries_);
+        }
+        maxEntries = maxEntries_;
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConfigrFileCache.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the imported files of a file, importing it only if it is not cached or has changed.
+     *
+     * @param filePath Path of file.
+     * @return Array of shared ConfigrFile objects.
+     * @throws FileNotFoundException Thrown the file cannot be found/read by the JVM.
+     */
+    public ConfigrFile[] getImportedFiles(String filePath) throws FileNotFoundException {
+        return load(filePath).files;
+    }
+
+    /**
+     * Get the imported files of a file as one layered config, in which the first file that has a setting wins. The layered config is built once per cached import.
+     *
+     * @param filePath Path of file.
+     * @return Shared layered config.
+     * @throws FileNotFoundException Thrown the file cannot be found/read by the JVM.
+     */
+    public ConfigrLayeredConfig getLayeredConfig(String filePath) throws FileNotFoundException {
+        Entry entry = load(filePath);
+        ConfigrLayeredConfig layered = entry.layered;
+        if (layered == null) {
+            ConfigrFile[] reversed = new ConfigrFile[entry.files.length];
+            for (int i = 0; i < reversed.length; i++) {
+                reversed[i] = entry.files[reversed.length - 1 - i];
+            }
+            layered = new ConfigrLayeredConfig(reversed);
+            entry.layered = layered;
+        }
+        return layered;
+    }
+
+    private Entry load(String filePath) throws FileNotFoundException {
+        File file;
+        try {
+            file = new File(filePath).getCanonicalFile();
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not resolve file: " + e.getMessage());
+        }
+        String key = file.getPath();
+        long length = file.length();
+        long modified = file.lastModified();
+        long journalLength = ConfigrJournal.length(file);
+        long journalModified = ConfigrJournal.lastModified(file);
+
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.length == length && entry.modified == modified && entry.journalLength == journalLength && entry.journalModified == journalModified && (!entry.racy || verify(file, entry))) {
+            synchronized (this) {
+                hits++;
+            }
+            ConfigrMetricsSink sink = ConfigrMetrics.getSink();
+            if (sink != null) {
+                sink.cacheLookup(key, true);
+            }
+            return entry;
+        }
+
+        long loaded = System.currentTimeMillis();
+        entry = new Entry();
+        entry.files = new ConfigrImportContext(file).getImportedFiles();
+        entry.length = length;
+        entry.modified = modified;
+        entry.journalLength = journalLength;
+        entry.journalModified = journalModified;
+        entry.racy = modified + MTIME_GRANULARITY > loaded;
+        if (entry.racy) {
+            entry.checksum = checksum(file);
+        }
+        synchronized (this) {
+            misses++;
+            entries.put(key, entry);
+        }
+        ConfigrMetricsSink sink = ConfigrMetrics.getSink();
+        if (sink != null) {
+            sink.cacheLookup(key, false);
+        }
+        return entry;
+    }
+
+    private boolean verify(File file, Entry entry) {
+        long now = System.currentTimeMillis();
+        if (checksum(file) != entry.checksum) {
+            return false;
+        }
+        if (entry.modified + MTIME_GRANULARITY <= now) {
+            entry.racy = false;
+        }
+        return true;
+    }
+
+    private static long checksum(File file) {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Remove a file from the cache.
+     *
+     * @param filePath Path of file.
+     */
+    public void invalidate(String filePath) {
+        try {
+            String key = new File(filePath).getCanonicalPath();
+            synchronized (this) {
+                entries.remove(key);
+            }
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not resolve file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove all files from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Get the number of cached files.
+     *
+     * @return Size.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     *
+     * @return Hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups that had to import the file.
+     *
+     * @return Misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * A cached import.
+     */
+    private static final class Entry {
+
+        ConfigrFile[] files;
+        volatile ConfigrLayeredConfig layered;
+        long length;
+        long modified;
+        long journalLength;
+        long journalModified;
+        long checksum;
+        volatile boolean racy;
+    }
+}
@@ -1,32 +1,57 @@
 package org.noviv.configr.io;
 
-import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
 import org.noviv.configr.ConfigrFile;
-import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrInternPool;
 import org.noviv.configr.data.ConfigrSettingsMap;
 import org.noviv.configr.exceptions.ConfigrBufferException;
 import org.noviv.configr.exceptions.ConfigrIOException;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+import org.noviv.configr.metrics.ConfigrMetrics;
+import org.noviv.configr.metrics.ConfigrMetricsSink;
 
 /**
  * The context in which any configuration file is imported as an array of ConfigrFile objects. Must be refreshed when a file changed.
+ * <p>
+ * Changes a ConfigrFile journaled next to the file are replayed over the first section, which is the section a ConfigrFile writes, or over the settings before it if the file has no section headers.
  */
 public class ConfigrImportContext {
 
+    private static final long UNKNOWN = -1;
+    private static final String NULL_CONFIG = "Null Config";
+
     private File file;
     private String regex;
+    private ConfigrImportMode mode;
+    private ConfigrInternPool pool;
+    private ConfigrSchema schema;
 
-    private ArrayList<String> linesBuffer;
-    private ArrayList<String> nameBuffer;
-    private ArrayList<ConfigrSettingsMap> configBuffer;
-    private ConfigrSettingsMap nullBuffer;
+    private Section[] sections;
+    private HashMap<String, Section> sectionIndex;
+    private ByteBuffer buffer;
+    private long loadedBytes;
+    private int loadedLines;
+    private long journalLength;
+    private long journalModified;
+    private volatile ConfigrFile[] importedConfigObjects;
+    private volatile boolean nullBufferActive;
 
-    private ConfigrFile[] importedConfigObjects;
-    private boolean nullBufferActive;
+    private ConfigrWatcher.Watch watch;
 
     /**
      * Create a new import context.
@@ -56,7 +81,52 @@ public class ConfigrImportContext {
      * @throws FileNotFoundException
      */
     public ConfigrImportContext(File file_, String regex_) throws FileNotFoundException {
+        this(file_, regex_, ConfigrImportMode.STREAMED);
+    }
+
+    /**
+     * Create a new import context with a custom regex and import mode.
+     *
+     * @param file_ File.
+     * @param regex_ Custom regex.
+     * @param mode_ Import mode.
+     * @throws FileNotFoundException Thrown the file cannot be found/read by the JVM.
+     */
+    public ConfigrImportContext(File file_, String regex_, ConfigrImportMode mode_) throws FileNotFoundException {
+        this(file_, regex_, mode_, null);
+    }
+
+    /**
+     * Create a new import context with a custom regex and import mode, interning section names, keys and short values through a pool. Files imported with the same pool share their strings.
+     *
+     * @param file_ File.
+     * @param regex_ Custom regex.
+     * @param mode_ Import mode.
+     * @param pool_ Intern pool, or null to create new strings.
+     * @throws FileNotFoundException Thrown the file cannot be found/read by the JVM.
+     */
+    public ConfigrImportContext(File file_, String regex_, ConfigrImportMode mode_, ConfigrInternPool pool_) throws FileNotFoundException {
+        this(file_, regex_, mode_, pool_, null);
+    }
+
+    /**
+     * Create a new import context that checks and converts the settings of each section through the definitions the schema scopes to it while they are parsed. Declared settings missing from a section get their default value; the settings before the first section header only do if there are any.
+     *
+     * @param file_ File.
+     * @param regex_ Custom regex.
+     * @param mode_ Import mode.
+     * @param pool_ Intern pool, or null to create new strings.
+     * @param schema_ Schema without unscoped definitions, or null to keep the inferred data types.
+     * @throws FileNotFoundException Thrown the file cannot be found/read by the JVM.
+     */
+    public ConfigrImportContext(File file_, String regex_, ConfigrImportMode mode_, ConfigrInternPool pool_, ConfigrSchema schema_) throws FileNotFoundException {
+        if (schema_ != null && schema_.hasUnscopedDefinitions()) {
+            throw new ConfigrValidationException("Schema definitions must be scoped to sections to be used in an import.");
+        }
+        schema = schema_;
         nullBufferActive = false;
+        mode = mode_;
+        pool = pool_;
         file = file_;
         if (!file.exists()) {
             throw new ConfigrBufferException("File selected to import does not exist.");
@@ -65,108 +135,410 @@ public class ConfigrImportContext {
         if (regex == null || regex.isEmpty()) {
             throw new ConfigrBufferException("Custom regex " + regex + " is invalid.");
         }
-        loadLineBuffer();
-        loadImportBuffer();
+        load();
     }
 
     /**
-     * Refresh the context and reload settings. Only necessary if file changes after read context is initialized.
+     * Refresh the context and reload settings. Only necessary if file changes after read context is initialized and the context is not watched. In lazy mode, this parses all sections; watched lazy contexts only parse sections that were already requested.
+     * <p>
+     * Refreshes are incremental: the file is mapped and split at section headers, and only sections whose size or CRC32 changed are parsed again. Existing ConfigrFile objects are kept for all sections that still exist; changed sections receive their new settings through ConfigrFile.load. After a streamed import, the first refresh has no checksums to compare against and parses every section.
      *
      * @return The updated imported objects.
      */
     public ConfigrFile[] refresh() {
+        reload();
+        return getImportedFiles();
+    }
+
+    /**
+     * Refresh the context in the background whenever the file changes, using the default watcher and a 100 ms debounce.
+     */
+    public void watch() {
+        watch(ConfigrWatcher.getDefault(), 100);
+    }
+
+    /**
+     * Refresh the context in the background whenever the file changes. The new array of ConfigrFile objects is only published once it is fully loaded; failed refreshes keep the previous one.
+     *
+     * @param watcher Watcher.
+     * @param debounceMillis Time without further changes before the file is reloaded.
+     */
+    public synchronized void watch(ConfigrWatcher watcher, long debounceMillis) {
+        unwatch();
+        watch = watcher.watch(file, debounceMillis, new Runnable() {
+
+            @Override
+            public void run() {
+                reload();
+            }
+        });
+    }
+
+    /**
+     * Stop refreshing the context when the file changes.
+     */
+    public synchronized void unwatch() {
+        if (watch != null) {
+            watch.cancel();
+            watch = null;
+        }
+    }
+
+    private void reload() {
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            loadLineBuffer();
-            loadImportBuffer();
+            load();
+            success = true;
         } catch (Exception e) {
+        } finally {
+            ConfigrMetricsSink sink = ConfigrMetrics.getSink();
+            if (sink != null) {
+                sink.refreshed(file.getPath(), System.nanoTime() - start, success);
+            }
+        }
+    }
+
+    private synchronized void load() throws FileNotFoundException {
+        long start = System.nanoTime();
+        long length = ConfigrJournal.length(file);
+        long modified = ConfigrJournal.lastModified(file);
+        boolean journalChanged = length != journalLength || modified != journalModified;
+        journalLength = length;
+        journalModified = modified;
+        if (mode == ConfigrImportMode.STREAMED && sections == null) {
+            loadStreamed();
+        } else {
+            loadMapped(journalChanged);
+        }
+        ConfigrMetricsSink sink = ConfigrMetrics.getSink();
+        if (sink != null) {
+            sink.parsed(file.getPath(), loadedBytes, loadedLines, sections.length - 1, System.nanoTime() - start);
         }
-        return getImportedFiles();
     }
 
-    private void loadLineBuffer() throws FileNotFoundException {
-        BufferedReader br = new BufferedReader(new FileReader(file));
-        linesBuffer = new ArrayList<>();
-        nullBuffer = new ConfigrSettingsMap();
-        String line;
+    private void loadStreamed() throws FileNotFoundException {
+        ConfigrTokenizer tokens = new ConfigrStreamTokenizer(new FileInputStream(file), regex);
+        tokens.setInternPool(pool);
+        ArrayList<Section> sectionBuffer = new ArrayList<>();
+        Section preamble = new Section(null, -1, -1);
+        preamble.config = new ConfigrSettingsMap();
+        sectionBuffer.add(preamble);
         try {
-            while ((line = br.readLine()) != null) {
-                linesBuffer.add(line);
+            ConfigrTokenizer.Token token = readSettings(tokens, preamble);
+            while (token == ConfigrTokenizer.Token.SECTION) {
+                Section section = new Section(tokens.getSectionName(), -1, -1);
+                section.config = new ConfigrSettingsMap();
+                sectionBuffer.add(section);
+                token = readSettings(tokens, section);
+            }
+            loadedBytes = file.length();
+            loadedLines = tokens.getLineNumber();
+        } finally {
+            try {
+                tokens.close();
+            } catch (IOException e) {
             }
-        } catch (IOException e) {
-            throw new ConfigrIOException("Could not import file: " + e.getMessage());
         }
+        publish(sectionBuffer.toArray(new Section[sectionBuffer.size()]), null);
     }
 
-    private void loadImportBuffer() {
-        nameBuffer = new ArrayList<>();
-        configBuffer = new ArrayList<>();
-        ConfigrSettingsMap currentConfig = null;
-        for (String s : linesBuffer) {
-            if (s.contains("[") && s.contains("]")) {
-                if (currentConfig != null) {
-                    configBuffer.add(currentConfig);
+    private void loadMapped(boolean journalChanged) throws FileNotFoundException {
+        MappedByteBuffer buffer = map();
+        Section[] next = scan(buffer);
+
+        HashMap<String, ArrayDeque<Section>> previous = new HashMap<>();
+        if (sections != null) {
+            for (Section s : sections) {
+                ArrayDeque<Section> same = previous.get(s.name);
+                if (same == null) {
+                    same = new ArrayDeque<>();
+                    previous.put(s.name, same);
                 }
-                currentConfig = new ConfigrSettingsMap();
-                nameBuffer.add(s.replace("[", "").replace("]", ""));
-            } else if (s.contains("=")) {
-                String key = s.substring(0, s.indexOf(regex));
-                String value = s.substring(s.indexOf(regex) + 1);
-                if (value.contains("true") || value.contains("false")) {
-                    if (currentConfig != null) {
-                        currentConfig.put(key, value, ConfigrDataType.BOOLEAN);
-                    } else {
-                        nullBuffer.put(key, value, ConfigrDataType.BOOLEAN);
-                    }
-                } else if (value.matches("^-?\\d+$")) {
-                    if (currentConfig != null) {
-                        currentConfig.put(key, value, ConfigrDataType.INTEGER);
-                    } else {
-                        nullBuffer.put(key, value, ConfigrDataType.INTEGER);
-                    }
-                } else if (value.matches("-?\\d+(\\.\\d+)?")) {
-                    if (currentConfig != null) {
-                        currentConfig.put(key, value, ConfigrDataType.DOUBLE);
-                    } else {
-                        nullBuffer.put(key, value, ConfigrDataType.DOUBLE);
-                    }
-                } else {
-                    if (currentConfig != null) {
-                        currentConfig.put(key, value, ConfigrDataType.STRING);
-                    } else {
-                        nullBuffer.put(key, value, ConfigrDataType.STRING);
-                    }
+                same.add(s);
+            }
+        }
+
+        int journaled = journaled(next);
+        int[] changed = new int[next.length];
+        int count = 0;
+        for (int i = 0; i < next.length; i++) {
+            Section s = next[i];
+            ArrayDeque<Section> same = previous.get(s.name);
+            Section old = same == null ? null : same.poll();
+            if (old != null) {
+                s.file = old.file;
+                s.errors = old.errors;
+                if (old.checksum == s.checksum && old.length() == s.length() && old.checksum != UNKNOWN && !(journalChanged && i == journaled)) {
+                    continue;
                 }
-            } else if (s.length() > 0) {
-                if (currentConfig != null) {
-                    currentConfig.put(s, ConfigrDataType.NULL);
+            }
+            if (mode == ConfigrImportMode.LAZY && s.file == null && i > 0) {
+                continue;
+            }
+            changed[count++] = i;
+        }
+
+        if (mode == ConfigrImportMode.PARALLEL && count > 1) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            int threshold = Math.max(1, count / (pool.getParallelism() * 4));
+            pool.invoke(new SectionTask(buffer, next, changed, 0, count, threshold));
+        } else {
+            for (int i = 0; i < count; i++) {
+                parse(buffer, next[changed[i]]);
+            }
+        }
+        publish(next, buffer);
+    }
+
+    private Section[] scan(ByteBuffer buffer) {
+        ConfigrTokenizer tokens = new ConfigrBufferTokenizer(buffer.duplicate(), regex);
+        tokens.setInternPool(pool);
+        ArrayList<Section> sectionBuffer = new ArrayList<>();
+        Section current = new Section(null, 0, 0);
+        sectionBuffer.add(current);
+        try {
+            while (tokens.nextSection()) {
+                current.end = (int) tokens.getLineOffset();
+                current = new Section(tokens.getSectionName(), current.end, 0);
+                sectionBuffer.add(current);
+            }
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not import file: " + e.getMessage());
+        }
+        current.end = buffer.limit();
+        loadedBytes = buffer.limit();
+        loadedLines = tokens.getLineNumber();
+
+        CRC32 crc = new CRC32();
+        for (Section s : sectionBuffer) {
+            ByteBuffer range = buffer.duplicate();
+            range.limit(s.end);
+            range.position(s.start);
+            crc.reset();
+            crc.update(range);
+            s.checksum = crc.getValue();
+        }
+        return sectionBuffer.toArray(new Section[sectionBuffer.size()]);
+    }
+
+    private void parse(ByteBuffer buffer, Section s) {
+        ByteBuffer range = buffer.duplicate();
+        range.limit(s.end);
+        range.position(s.start);
+        parseRange(range, s);
+    }
+
+    private void parseRange(ByteBuffer range, Section s) {
+        ConfigrTokenizer tokens = new ConfigrBufferTokenizer(range, regex);
+        tokens.setInternPool(pool);
+        s.config = new ConfigrSettingsMap();
+        if (s.name != null) {
+            try {
+                tokens.next();
+            } catch (IOException e) {
+                throw new ConfigrIOException("Could not import file: " + e.getMessage());
+            }
+        }
+        readSettings(tokens, s);
+    }
+
+    private ConfigrTokenizer.Token readSettings(ConfigrTokenizer tokens, Section s) {
+        ConfigrSchema.Check check = schema == null ? null : schema.checkSection(s.name == null ? NULL_CONFIG : s.name);
+        s.check = check;
+        try {
+            ConfigrTokenizer.Token token;
+            while ((token = tokens.next()) == ConfigrTokenizer.Token.SETTING) {
+                if (check == null) {
+                    tokens.put(s.config);
                 } else {
-                    nullBuffer.put(s, ConfigrDataType.NULL);
+                    check.put(tokens, s.config);
                 }
             }
+            return token;
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not import file: " + e.getMessage());
         }
-        if (currentConfig != null) {
-            configBuffer.add(currentConfig);
-        }
+    }
 
-        if (nameBuffer.size() != configBuffer.size()) {
-            throw new ConfigrBufferException("Import buffer length mismatch: name/config.");
+    private static int journaled(Section[] sections) {
+        return sections.length > 1 ? 1 : 0;
+    }
+
+    private void publish(Section[] next, ByteBuffer mapped) {
+        next[journaled(next)].journaled = true;
+        for (Section s : next) {
+            install(s);
         }
 
-        int add = 0;
-        if (nullBuffer.size() > 0) {
-            add = 1;
-            nullBufferActive = true;
+        HashMap<String, Section> index = new HashMap<>();
+        for (int i = next.length - 1; i > 0; i--) {
+            index.put(next[i].name, next[i]);
+        }
+        Section preamble = next[0];
+        boolean active = !preamble.file.getSettings().isEmpty();
+        if (active && !index.containsKey(NULL_CONFIG)) {
+            index.put(NULL_CONFIG, preamble);
+        }
+        sections = next;
+        sectionIndex = index;
+        nullBufferActive = active;
+        if (mode == ConfigrImportMode.LAZY) {
+            buffer = mapped;
+            importedConfigObjects = null;
+        } else {
+            importedConfigObjects = files();
         }
+    }
 
-        importedConfigObjects = new ConfigrFile[nameBuffer.size() + add];
-        for (int i = 0; i < importedConfigObjects.length - add; i++) {
-            importedConfigObjects[i] = new ConfigrFile(nameBuffer.get(i));
-            importedConfigObjects[i].setAll(configBuffer.get(i));
+    private void install(Section s) {
+        if (s.config == null) {
+            return;
+        }
+        ConfigrSchema.Check check = s.check;
+        if (s.journaled) {
+            ConfigrJournal.replay(file, s.config, check);
         }
+        if (check != null && (s.name != null || s.config.size() > 0)) {
+            check.finish(s.config);
+        }
+        s.errors = check == null ? null : check.getErrors();
+        s.check = null;
+        if (s.file == null) {
+            s.file = new ConfigrFile(s.name == null ? NULL_CONFIG : s.name);
+        }
+        s.file.load(s.config);
+        s.config = null;
+    }
 
+    private ConfigrFile[] files() {
+        Section preamble = sections[0];
+        int add = nullBufferActive ? 1 : 0;
+        ConfigrFile[] files = new ConfigrFile[sections.length - 1 + add];
+        for (int i = 1; i < sections.length; i++) {
+            files[i - 1] = sections[i].file;
+        }
         if (add == 1) {
-            importedConfigObjects[nameBuffer.size()] = new ConfigrFile("Null Config");
-            importedConfigObjects[nameBuffer.size()].setAll(nullBuffer);
+            files[sections.length - 1] = preamble.file;
+        }
+        return files;
+    }
+
+    /**
+     * Parse a section of a lazy import if it was not parsed yet. The file may have been rewritten since it was scanned, so the section is copied out of the mapping and checked against the length and checksum of the scan first; if either differs, the file is scanned again instead.
+     *
+     * @return False if the file was scanned again, which replaces all sections.
+     */
+    private boolean materialize(Section s) {
+        if (s.file != null) {
+            return true;
+        }
+        ByteBuffer range = copy(s);
+        if (range == null) {
+            try {
+                load();
+            } catch (FileNotFoundException e) {
+                throw new ConfigrIOException("Could not import file: " + e.getMessage());
+            }
+            return false;
+        }
+        parseRange(range, s);
+        install(s);
+        return true;
+    }
+
+    private ByteBuffer copy(Section s) {
+        if (file.length() != loadedBytes) {
+            return null;
+        }
+        byte[] bytes = new byte[s.length()];
+        try {
+            ByteBuffer range = buffer.duplicate();
+            range.limit(s.end);
+            range.position(s.start);
+            range.get(bytes);
+        } catch (InternalError e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue() == s.checksum ? ByteBuffer.wrap(bytes) : null;
+    }
+
+    /**
+     * A section of the imported file. The first section holds the settings before any section header and has no name.
+     */
+    private static final class Section {
+
+        final String name;
+        final int start;
+        int end;
+        long checksum;
+        boolean journaled;
+        ConfigrSettingsMap config;
+        ConfigrSchema.Check check;
+        ConfigrFile file;
+        List<String> errors;
+
+        Section(String name_, int start_, int end_) {
+            name = name_;
+            start = start_;
+            end = end_;
+            checksum = UNKNOWN;
+        }
+
+        int length() {
+            return end - start;
+        }
+    }
+
+    /**
+     * Parses a range of sections, splitting it in half until it is below the threshold.
+     */
+    private class SectionTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer buffer;
+        private final Section[] sections;
+        private final int[] which;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        SectionTask(ByteBuffer buffer_, Section[] sections_, int[] which_, int from_, int to_, int threshold_) {
+            buffer = buffer_;
+            sections = sections_;
+            which = which_;
+            from = from_;
+            to = to_;
+            threshold = threshold_;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    parse(buffer, sections[which[i]]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SectionTask(buffer, sections, which, from, mid, threshold),
+                    new SectionTask(buffer, sections, which, mid, to, threshold));
+        }
+    }
+
+    private MappedByteBuffer map() throws FileNotFoundException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ConfigrIOException("File too large to map: " + file.getName());
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(e.getMessage());
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not map file: " + e.getMessage());
         }
     }
 
@@ -176,7 +548,62 @@ public class ConfigrImportContext {
      * @return Array of ConfigrFile objects.
      */
     public ConfigrFile[] getImportedFiles() {
-        return importedConfigObjects;
+        ConfigrFile[] files = importedConfigObjects;
+        if (files == null) {
+            synchronized (this) {
+                files = importedConfigObjects;
+                if (files == null) {
+                    int i = 0;
+                    while (i < sections.length) {
+                        i = materialize(sections[i]) ? i + 1 : 0;
+                    }
+                    files = files();
+                    importedConfigObjects = files;
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Get an imported section by name. Settings before the first section header are named "Null Config". If several sections share a name, the first one is returned. In lazy mode, the section is parsed the first time it is requested.
+     *
+     * @param name Section name.
+     * @return ConfigrFile of the section, or null if there is no such section.
+     */
+    public synchronized ConfigrFile getSection(String name) {
+        Section s;
+        do {
+            s = sectionIndex.get(name);
+            if (s == null) {
+                return null;
+            }
+        } while (!materialize(s));
+        return s.file;
+    }
+
+    /**
+     * Get the mismatches the schema reported for all parsed sections, in the order of the sections. In lazy mode, sections that were not parsed yet have none.
+     *
+     * @return Messages, empty if there were none or no schema is used.
+     */
+    public synchronized List<String> getSchemaErrors() {
+        ArrayList<String> errors = new ArrayList<>();
+        for (Section s : sections) {
+            if (s.errors != null) {
+                errors.addAll(s.errors);
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Get the import mode.
+     *
+     * @return Import mode.
+     */
+    public ConfigrImportMode getMode() {
+        return mode;
     }
 
     /**
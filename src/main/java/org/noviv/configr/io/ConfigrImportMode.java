@@ -0,0 +1,24 @@
+package org.noviv.configr.io;
+
+/**
+ * How a ConfigrImportContext reads its file.
+ */
+public enum ConfigrImportMode {
+
+    /**
+     * Stream the file through a small line buffer. Default.
+     */
+    STREAMED,
+    /**
+     * Map the file into memory and parse the UTF-8 bytes in place. Suited to very large files.
+     */
+    MAPPED,
+    /**
+     * Map the file, split it at section headers and parse the sections in parallel on the common ForkJoinPool.
+     */
+    PARALLEL,
+    /**
+     * Map the file and only scan it for section headers. Each section is parsed the first time it is requested through getSection, or when all sections are requested through getImportedFiles.
+     */
+    LAZY
+}
@@ -0,0 +1,279 @@
+package org.noviv.configr.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.exceptions.ConfigrBufferException;
+import org.noviv.configr.exceptions.ConfigrIOException;
+
+/**
+ * Append-only journal of changes to a config file, kept next to it as <code>file.cfgr.log</code>. Each change is one <code>key=value</code> line, so appending costs the same regardless of the size of the file.
+ * <p>
+ * The journal is compacted by writing the base file and dropping the journal. Before the base file is written, the journal is rotated to <code>file.cfgr.log.1</code>, so changes made during the write go to a fresh journal; the rotated journal is deleted once the base file has been replaced. Reading replays the base file, the rotated journal and the journal, in that order.
+ */
+public class ConfigrJournal implements Closeable {
+
+    private final Path log;
+    private final Path rotated;
+
+    private final CharsetEncoder encoder;
+    private ByteBuffer buffer;
+    private FileChannel channel;
+    private long size;
+
+    /**
+     * Open the journal of a file, appending to any existing journal.
+     *
+     * @param base_ Base file.
+     */
+    public ConfigrJournal(File base_) {
+        log = getJournalFile(base_).toPath();
+        rotated = getRotatedFile(base_).toPath();
+        encoder = StandardCharsets.UTF_8.newEncoder();
+        buffer = ByteBuffer.allocate(256);
+        open();
+    }
+
+    /**
+     * Get the journal file of a file.
+     *
+     * @param base Base file.
+     * @return Journal file.
+     */
+    public static File getJournalFile(File base) {
+        return new File(base.getPath() + ".log");
+    }
+
+    private static File getRotatedFile(File base) {
+        return new File(base.getPath() + ".log.1");
+    }
+
+    private void open() {
+        try {
+            channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            size = channel.size();
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not open journal " + log + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Append a change to the journal.
+     *
+     * @param key Setting.
+     * @param value Value, or null for a setting without a value.
+     */
+    public synchronized void append(String key, String value) {
+        if (channel == null) {
+            throw new ConfigrBufferException("Journal already closed, cannot write.");
+        }
+        buffer.clear();
+        put(key);
+        if (value != null) {
+            put("=");
+            put(value);
+        }
+        put("\n");
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not write journal " + log + ": " + e.getMessage());
+        }
+    }
+
+    private void put(String s) {
+        CharBuffer chars = CharBuffer.wrap(String.valueOf(s));
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isUnderflow()) {
+                break;
+            }
+            if (result.isOverflow()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            } else {
+                throw new ConfigrBufferException("Could not encode value: " + s);
+            }
+        }
+        encoder.reset();
+    }
+
+    /**
+     * Get the size of the journal in bytes.
+     *
+     * @return Size.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Force the journal to disk.
+     */
+    public synchronized void sync() {
+        try {
+            if (channel != null) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not sync journal " + log + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Move the journal aside before the base file is written. If a previous compaction failed, the journal is appended to the journal it rotated.
+     */
+    public synchronized void rotate() {
+        try {
+            if (Files.exists(rotated)) {
+                try (FileChannel out = FileChannel.open(rotated, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    long position = 0;
+                    while (position < size) {
+                        position += channel.transferTo(position, size - position, out);
+                    }
+                }
+                channel.truncate(0);
+                size = 0;
+            } else {
+                channel.close();
+                channel = null;
+                Files.move(log, rotated, StandardCopyOption.ATOMIC_MOVE);
+                open();
+            }
+        } catch (IOException e) {
+            if (channel == null) {
+                open();
+            }
+            throw new ConfigrIOException("Could not rotate journal " + log + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drop the rotated journal once the base file has been written.
+     */
+    public void commit() {
+        try {
+            Files.deleteIfExists(rotated);
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not delete journal " + rotated + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Close the journal.
+     */
+    @Override
+    public synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Delete the journals of a file. Called when the file is written without a journal, so stale changes are not replayed over it.
+     *
+     * @param base Base file.
+     */
+    public static void discard(File base) {
+        try {
+            Files.deleteIfExists(getRotatedFile(base).toPath());
+            Files.deleteIfExists(getJournalFile(base).toPath());
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not delete journal of " + base + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the combined size of the journals of a file. Appending a change always increases it.
+     *
+     * @param base Base file.
+     * @return Size in bytes, 0 if the file has no journal.
+     */
+    public static long length(File base) {
+        return getRotatedFile(base).length() + getJournalFile(base).length();
+    }
+
+    /**
+     * Get the latest modification time of the journals of a file.
+     *
+     * @param base Base file.
+     * @return Modification time, 0 if the file has no journal.
+     */
+    public static long lastModified(File base) {
+        return Math.max(getRotatedFile(base).lastModified(), getJournalFile(base).lastModified());
+    }
+
+    /**
+     * Replay the journals of a file over its settings. A last line without a line break was torn by a crash and is ignored.
+     *
+     * @param base Base file.
+     * @param settings Settings read from the base file.
+     * @return Number of changes replayed.
+     */
+    public static int replay(File base, ConfigrSettingsMap settings) {
+        return replay(base, settings, null);
+    }
+
+    /**
+     * Replay the journals of a file over its settings, checking and converting each change through a schema.
+     *
+     * @param base Base file.
+     * @param settings Settings read from the base file.
+     * @param check Check of the settings, or null to keep the inferred data types.
+     * @return Number of changes replayed.
+     */
+    static int replay(File base, ConfigrSettingsMap settings, ConfigrSchema.Check check) {
+        return replay(getRotatedFile(base).toPath(), settings, check) + replay(getJournalFile(base).toPath(), settings, check);
+    }
+
+    private static int replay(Path path, ConfigrSettingsMap settings, ConfigrSchema.Check check) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not read journal " + path + ": " + e.getMessage());
+        }
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        ConfigrTokenizer tokens = new ConfigrBufferTokenizer(ByteBuffer.wrap(bytes, 0, end));
+        int count = 0;
+        try {
+            while (tokens.next() == ConfigrTokenizer.Token.SETTING) {
+                if (check == null) {
+                    tokens.put(settings);
+                } else {
+                    check.put(tokens, settings);
+                }
+                count++;
+            }
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not read journal " + path + ": " + e.getMessage());
+        }
+        return count;
+    }
+}
@@ -1,17 +1,19 @@
 package org.noviv.configr.io;
 
-import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.noviv.configr.Configr;
 import org.noviv.configr.ConfigrFile;
-import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrInternPool;
 import org.noviv.configr.data.ConfigrSettingsMap;
 import org.noviv.configr.exceptions.ConfigrBufferException;
 import org.noviv.configr.exceptions.ConfigrValidationException;
+import org.noviv.configr.metrics.ConfigrMetrics;
+import org.noviv.configr.metrics.ConfigrMetricsSink;
 
 /**
  * The context in which a file is read into a ConfigrFile object. Must be refreshed when a file changed, and must be written when data is changed in the object.
@@ -20,10 +22,12 @@ public class ConfigrReadContext {
 
     private String inputFilePath;
 
-    private String nameBuffer;
-    private ConfigrFile cFile;
+    private volatile ConfigrFile cFile;
+    private ConfigrInternPool pool;
+    private ConfigrSchema schema;
+    private volatile List<String> schemaErrors;
 
-    private ConfigrSettingsMap settings;
+    private ConfigrWatcher.Watch watch;
 
     /**
      * Create a new read context.
@@ -36,15 +40,23 @@ public class ConfigrReadContext {
     }
 
     /**
-     * Refresh the context and reload settings. Only necessary if file changes after read context is initialized.
+     * Refresh the context and reload settings. Only necessary if file changes after read context is initialized and the context is not watched. The settings are installed in the existing ConfigrFile without writing them back, so its change listeners are notified, unless the name of the config changed.
      *
      * @return ConfigrFile with new settings.
      */
     public ConfigrFile refresh() {
+        long start = System.nanoTime();
+        boolean success = false;
         try {
             process();
+            success = true;
         } catch (Exception e) {
             throw new ConfigrBufferException("Configr read buffer could not be refreshed: " + e.getMessage());
+        } finally {
+            ConfigrMetricsSink sink = ConfigrMetrics.getSink();
+            if (sink != null) {
+                sink.refreshed(inputFilePath, System.nanoTime() - start, success);
+            }
         }
         return cFile;
     }
@@ -56,8 +68,32 @@ public class ConfigrReadContext {
      * @throws FileNotFoundException Thrown if the file cannot be found/read by the JVM.
      */
     public ConfigrReadContext(File target) throws FileNotFoundException {
+        this(target, null);
+    }
+
+    /**
+     * Create a new read context that interns the name, keys and short values through a pool.
+     *
+     * @param target The target file.
+     * @param pool_ Intern pool, or null to create new strings.
+     * @throws FileNotFoundException Thrown if the file cannot be found/read by the JVM.
+     */
+    public ConfigrReadContext(File target, ConfigrInternPool pool_) throws FileNotFoundException {
+        this(target, pool_, null);
+    }
+
+    /**
+     * Create a new read context that checks and converts the settings through a schema while they are read, including the changes replayed from the journal.
+     *
+     * @param target The target file.
+     * @param pool_ Intern pool, or null to create new strings.
+     * @param schema_ Schema, or null to keep the inferred data types.
+     * @throws FileNotFoundException Thrown if the file cannot be found/read by the JVM.
+     */
+    public ConfigrReadContext(File target, ConfigrInternPool pool_, ConfigrSchema schema_) throws FileNotFoundException {
         inputFilePath = target.getAbsolutePath();
-        settings = new ConfigrSettingsMap();
+        pool = pool_;
+        schema = schema_;
         try {
             process();
         } catch (Exception e) {
@@ -69,38 +105,99 @@ public class ConfigrReadContext {
         }
     }
 
-    private void process() throws IOException {
+    /**
+     * Refresh the context in the background whenever the file changes, using the default watcher and a 100 ms debounce.
+     */
+    public void watch() {
+        watch(ConfigrWatcher.getDefault(), 100);
+    }
+
+    /**
+     * Refresh the context in the background whenever the file changes. The new ConfigrFile is only published once it is fully loaded; failed refreshes keep the previous one.
+     *
+     * @param watcher Watcher.
+     * @param debounceMillis Time without further changes before the file is reloaded.
+     */
+    public synchronized void watch(ConfigrWatcher watcher, long debounceMillis) {
+        unwatch();
+        watch = watcher.watch(new File(inputFilePath), debounceMillis, new Runnable() {
+
+            @Override
+            public void run() {
+                refresh();
+            }
+        });
+    }
+
+    /**
+     * Stop refreshing the context when the file changes.
+     */
+    public synchronized void unwatch() {
+        if (watch != null) {
+            watch.cancel();
+            watch = null;
+        }
+    }
+
+    private synchronized void process() throws IOException {
         File f = new File(inputFilePath);
         if (!f.getName().substring(f.getName().indexOf(".")).equals(".cfgr")) {
             throw new ConfigrValidationException("Invalid file extension: " + f.getName().substring(f.getName().indexOf(".")));
         }
-        BufferedReader br = new BufferedReader(new FileReader(f));
-        ArrayList<String> lines = new ArrayList<>();
-        String line;
-        while ((line = br.readLine()) != null) {
-            lines.add(line);
-        }
+        long start = System.nanoTime();
+        ConfigrTokenizer tokens = new ConfigrStreamTokenizer(new FileInputStream(f));
+        tokens.setInternPool(pool);
+        try {
+            String head = tokens.nextLine();
+            if (!Configr.validateCheckHead(head)) {
+                throw new ConfigrValidationException("Invalid Configr check head: " + head + " (Should be: " + Configr.getCheckHead() + ")");
+            }
+            if (tokens.next() != ConfigrTokenizer.Token.SECTION) {
+                throw new ConfigrValidationException("Missing Configr name on line " + tokens.getLineNumber());
+            }
+            String nameBuffer = tokens.getSectionName();
 
-        if (!Configr.validateCheckHead(lines.get(0))) {
-            throw new ConfigrValidationException("Invalid Configr check head: " + lines.get(0) + " (Should be: " + Configr.getCheckHead() + ")");
-        }
-        nameBuffer = lines.get(1).replace("[", "").replace("]", "");
-
-        cFile = new ConfigrFile(nameBuffer, inputFilePath);
-        for (int i = 2; i < lines.size(); i++) {
-            String key = lines.get(i).substring(0, lines.get(i).indexOf("="));
-            String value = lines.get(i).substring(lines.get(i).indexOf("=") + 1);
-            if (value.contains("true") || value.contains("false")) {
-                settings.put(key, value, ConfigrDataType.BOOLEAN);
-            } else if (value.matches("^-?\\d+$")) {
-                settings.put(key, value, ConfigrDataType.INTEGER);
-            } else if (value.matches("-?\\d+(\\.\\d+)?")) {
-                settings.put(key, value, ConfigrDataType.DOUBLE);
-            } else {
-                settings.put(key, value, ConfigrDataType.STRING);
+            ConfigrFile file = cFile;
+            if (file == null || !file.getName().equals(nameBuffer)) {
+                file = new ConfigrFile(nameBuffer, inputFilePath);
+            }
+            ConfigrSettingsMap settings = new ConfigrSettingsMap();
+            ConfigrSchema.Check check = schema == null ? null : schema.checkConfig(nameBuffer);
+            ConfigrTokenizer.Token token;
+            while ((token = tokens.next()) != ConfigrTokenizer.Token.END) {
+                if (token != ConfigrTokenizer.Token.SETTING) {
+                    throw new ConfigrValidationException("Invalid setting on line " + tokens.getLineNumber());
+                }
+                if (check == null) {
+                    tokens.put(settings);
+                } else {
+                    check.put(tokens, settings);
+                }
+            }
+            ConfigrJournal.replay(f, settings, check);
+            if (check != null) {
+                check.finish(settings);
+                schemaErrors = check.getErrors();
+            }
+            ConfigrMetricsSink sink = ConfigrMetrics.getSink();
+            if (sink != null) {
+                sink.parsed(inputFilePath, f.length(), tokens.getLineNumber(), 1, System.nanoTime() - start);
             }
+            file.load(settings);
+            cFile = file;
+        } finally {
+            tokens.close();
         }
-        cFile.setAll(settings);
+    }
+
+    /**
+     * Get the mismatches the schema reported during the most recent refresh.
+     *
+     * @return Messages, empty if there were none or no schema is used.
+     */
+    public List<String> getSchemaErrors() {
+        List<String> errors = schemaErrors;
+        return errors == null ? Collections.<String>emptyList() : Collections.unmodifiableList(errors);
     }
 
     /**
@@ -0,0 +1,368 @@
+package org.noviv.configr.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.exceptions.ConfigrIOException;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * Declared data types of settings, applied by read and import contexts while they parse. Each setting is checked and converted once, when it is loaded: values whose inferred type differs from the declared one are converted where no information is lost (integers to doubles, anything to strings) and reported otherwise, and declared settings that are missing get the default value of their data type. Readers then get values of the declared types without converting them again.
+ * <p>
+ * Definitions are either scoped to a section or unscoped. An import checks each section against the definitions scoped to its name and keeps sections without any as inferred; it rejects schemas with unscoped definitions, since they cannot tell the sections apart. A read context, whose file holds a single config, uses the definitions scoped to the name of the config, or the unscoped ones if there are none.
+ * <p>
+ * A schema is declared in code through {@link #define(String, ConfigrDataType)} or read from a file of <code>key=Type</code> lines. It is compiled into lookup tables when it is first used; later definitions compile it again.
+ */
+public class ConfigrSchema {
+
+    private final LinkedHashMap<String, ConfigrDataType> definitions;
+    private final LinkedHashMap<String, LinkedHashMap<String, ConfigrDataType>> scoped;
+    private boolean strict;
+    private boolean allowUnknown;
+
+    private volatile Compiled compiled;
+
+    /**
+     * Create a new empty schema. It reports mismatches instead of rejecting them, and allows settings it does not define.
+     */
+    public ConfigrSchema() {
+        definitions = new LinkedHashMap<>();
+        scoped = new LinkedHashMap<>();
+        strict = false;
+        allowUnknown = true;
+    }
+
+    /**
+     * Read a schema from a file of <code>key=Type</code> lines, where Type is the name of a data type like Integer, or of its constant like INTEGER. Lines after a <code>[Section]</code> header are scoped to that section; lines before any header are unscoped.
+     *
+     * @param file Schema file.
+     * @return Schema.
+     * @throws FileNotFoundException Thrown if the file cannot be found/read by the JVM.
+     */
+    public static ConfigrSchema load(File file) throws FileNotFoundException {
+        ConfigrSchema schema = new ConfigrSchema();
+        ConfigrTokenizer tokens = new ConfigrStreamTokenizer(new FileInputStream(file));
+        try {
+            String section = null;
+            ConfigrTokenizer.Token token;
+            while ((token = tokens.next()) != ConfigrTokenizer.Token.END) {
+                if (token == ConfigrTokenizer.Token.SECTION) {
+                    section = tokens.getSectionName();
+                    continue;
+                }
+                if (tokens.getValue() == null) {
+                    throw new ConfigrValidationException("Invalid schema definition on line " + tokens.getLineNumber());
+                }
+                ConfigrDataType type = type(tokens.getValue().trim());
+                if (type == null) {
+                    throw new ConfigrValidationException("Unknown data type " + tokens.getValue() + " on line " + tokens.getLineNumber());
+                }
+                if (section == null) {
+                    schema.define(tokens.getKey(), type);
+                } else {
+                    schema.define(section, tokens.getKey(), type);
+                }
+            }
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not read schema: " + e.getMessage());
+        } finally {
+            try {
+                tokens.close();
+            } catch (IOException e) {
+            }
+        }
+        return schema;
+    }
+
+    private static ConfigrDataType type(String name) {
+        for (ConfigrDataType type : ConfigrDataType.values()) {
+            if (type.getName().equalsIgnoreCase(name) || type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Declare the data type of a setting of a single config, as read by a read context.
+     *
+     * @param key Setting.
+     * @param type Data type; NULL is not allowed.
+     * @return This schema.
+     */
+    public synchronized ConfigrSchema define(String key, ConfigrDataType type) {
+        requireValueType(key, type);
+        definitions.put(key, type);
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Declare the data type of a setting of one section. Settings before the first section header of an imported file are in the section "Null Config".
+     *
+     * @param section Section name.
+     * @param key Setting.
+     * @param type Data type; NULL is not allowed.
+     * @return This schema.
+     */
+    public synchronized ConfigrSchema define(String section, String key, ConfigrDataType type) {
+        requireValueType(key, type);
+        LinkedHashMap<String, ConfigrDataType> scope = scoped.get(section);
+        if (scope == null) {
+            scope = new LinkedHashMap<>();
+            scoped.put(section, scope);
+        }
+        scope.put(key, type);
+        compiled = null;
+        return this;
+    }
+
+    private static void requireValueType(String key, ConfigrDataType type) {
+        if (type == null || type == ConfigrDataType.NULL) {
+            throw new ConfigrValidationException("Setting " + key + " must have a value type.");
+        }
+    }
+
+    /**
+     * Set whether mismatches abort the load. Otherwise they are reported, and the setting gets the default value of its declared data type.
+     *
+     * @param strict_ True means mismatches throw a ConfigrValidationException.
+     */
+    public synchronized void setStrict(boolean strict_) {
+        strict = strict_;
+        compiled = null;
+    }
+
+    /**
+     * Set whether settings the schema does not define are kept as inferred. Otherwise they are mismatches. Sections of an import without scoped definitions are always kept as inferred.
+     *
+     * @param allowUnknown_ True means undefined settings are allowed.
+     */
+    public synchronized void setAllowUnknown(boolean allowUnknown_) {
+        allowUnknown = allowUnknown_;
+        compiled = null;
+    }
+
+    /**
+     * Get the declared data type of an unscoped setting.
+     *
+     * @param key Setting.
+     * @return Data type, or null if the setting is not defined.
+     */
+    public synchronized ConfigrDataType getType(String key) {
+        return definitions.get(key);
+    }
+
+    /**
+     * Get the declared data type of a setting of one section.
+     *
+     * @param section Section name.
+     * @param key Setting.
+     * @return Data type, or null if the setting is not defined for the section.
+     */
+    public synchronized ConfigrDataType getType(String section, String key) {
+        LinkedHashMap<String, ConfigrDataType> scope = scoped.get(section);
+        return scope == null ? null : scope.get(key);
+    }
+
+    /**
+     * Get all unscoped declarations, in the order they were made.
+     *
+     * @return Data types by setting.
+     */
+    public synchronized Map<String, ConfigrDataType> getDefinitions() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(definitions));
+    }
+
+    /**
+     * Get all declarations of one section, in the order they were made.
+     *
+     * @param section Section name.
+     * @return Data types by setting, empty if the section has no definitions.
+     */
+    public synchronized Map<String, ConfigrDataType> getDefinitions(String section) {
+        LinkedHashMap<String, ConfigrDataType> scope = scoped.get(section);
+        return scope == null ? Collections.<String, ConfigrDataType>emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(scope));
+    }
+
+    /**
+     * Check whether the schema has unscoped definitions.
+     *
+     * @return True means the schema can only be applied to a single config.
+     */
+    public synchronized boolean hasUnscopedDefinitions() {
+        return !definitions.isEmpty();
+    }
+
+    private Compiled compile() {
+        Compiled c = compiled;
+        if (c == null) {
+            synchronized (this) {
+                HashMap<String, Rules> sections = new HashMap<>();
+                for (Map.Entry<String, LinkedHashMap<String, ConfigrDataType>> e : scoped.entrySet()) {
+                    sections.put(e.getKey(), new Rules(e.getValue(), strict, allowUnknown));
+                }
+                c = new Compiled(new Rules(definitions, strict, allowUnknown), sections);
+                compiled = c;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Start checking the settings of a single config, against the definitions scoped to its name or else the unscoped ones.
+     *
+     * @param name Name of the config.
+     * @return Check.
+     */
+    Check checkConfig(String name) {
+        Compiled c = compile();
+        Rules r = c.sections.get(name);
+        return new Check(r == null ? c.unscoped : r, null);
+    }
+
+    /**
+     * Start checking the settings of one section of an import, against the definitions scoped to its name.
+     *
+     * @param section Section name.
+     * @return Check, or null if the section has no definitions.
+     */
+    Check checkSection(String section) {
+        Rules r = compile().sections.get(section);
+        return r == null ? null : new Check(r, section);
+    }
+
+    /**
+     * Compiled definitions of all scopes. Immutable, so a load keeps using the rules it started with.
+     */
+    private static final class Compiled {
+
+        final Rules unscoped;
+        final HashMap<String, Rules> sections;
+
+        Compiled(Rules unscoped_, HashMap<String, Rules> sections_) {
+            unscoped = unscoped_;
+            sections = sections_;
+        }
+    }
+
+    /**
+     * Compiled definitions of one scope.
+     */
+    private static final class Rules {
+
+        final HashMap<String, Integer> index;
+        final String[] keys;
+        final ConfigrDataType[] types;
+        final boolean strict;
+        final boolean allowUnknown;
+
+        Rules(LinkedHashMap<String, ConfigrDataType> definitions, boolean strict_, boolean allowUnknown_) {
+            index = new HashMap<>();
+            keys = new String[definitions.size()];
+            types = new ConfigrDataType[definitions.size()];
+            int i = 0;
+            for (Map.Entry<String, ConfigrDataType> e : definitions.entrySet()) {
+                index.put(e.getKey(), i);
+                keys[i] = e.getKey();
+                types[i] = e.getValue();
+                i++;
+            }
+            strict = strict_;
+            allowUnknown = allowUnknown_;
+        }
+    }
+
+    /**
+     * Check of the settings of one section. Not shared between threads.
+     */
+    static final class Check {
+
+        private final Rules rules;
+        private final String section;
+        private final boolean[] seen;
+        private List<String> errors;
+
+        private Check(Rules rules_, String section_) {
+            rules = rules_;
+            section = section_;
+            seen = new boolean[rules.keys.length];
+        }
+
+        /**
+         * Put the current setting of a tokenizer into a map, converted to its declared data type.
+         *
+         * @param tokens Tokenizer positioned on a setting.
+         * @param map Target map.
+         */
+        void put(ConfigrTokenizer tokens, ConfigrSettingsMap map) {
+            String key = tokens.getKey();
+            Integer i = rules.index.get(key);
+            ConfigrDataType actual = tokens.getType();
+            if (i == null) {
+                if (rules.allowUnknown) {
+                    tokens.put(map, key);
+                } else {
+                    report("Unknown setting " + key + " on line " + tokens.getLineNumber());
+                }
+                return;
+            }
+            seen[i] = true;
+            ConfigrDataType declared = rules.types[i];
+            if (actual == declared) {
+                tokens.put(map, key);
+            } else if (declared == ConfigrDataType.DOUBLE && actual == ConfigrDataType.INTEGER) {
+                tokens.putDouble(map, key);
+            } else if (declared == ConfigrDataType.STRING && actual != ConfigrDataType.NULL) {
+                map.putString(key, tokens.getValue());
+            } else {
+                report("Setting " + key + " is " + actual.getName() + ", not " + declared.getName() + " on line " + tokens.getLineNumber());
+                map.put(key, declared);
+            }
+        }
+
+        /**
+         * Put the default value of each declared setting that was not found into a map.
+         *
+         * @param map Target map.
+         */
+        void finish(ConfigrSettingsMap map) {
+            for (int i = 0; i < seen.length; i++) {
+                if (!seen[i]) {
+                    map.put(rules.keys[i], rules.types[i]);
+                }
+            }
+        }
+
+        private void report(String message) {
+            if (section != null) {
+                message = "[" + section + "] " + message;
+            }
+            if (rules.strict) {
+                throw new ConfigrValidationException(message);
+            }
+            if (errors == null) {
+                errors = new ArrayList<>();
+            }
+            errors.add(message);
+        }
+
+        /**
+         * Get the reported mismatches.
+         *
+         * @return Messages, empty if there were none.
+         */
+        List<String> getErrors() {
+            return errors == null ? Collections.<String>emptyList() : errors;
+        }
+    }
+}
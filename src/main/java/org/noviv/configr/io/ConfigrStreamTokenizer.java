@@ -0,0 +1,114 @@
+package org.noviv.configr.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tokenizer reading from an input stream. Only the current line is held in memory.
+ */
+public class ConfigrStreamTokenizer extends ConfigrTokenizer {
+
+    private static final int INITIAL_BUFFER = 8192;
+
+    private final InputStream in;
+
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    private long bufOffset;
+    private boolean eof;
+    private boolean skipLF;
+
+    /**
+     * Create a new stream tokenizer with the default separator '='.
+     *
+     * @param in_ Input stream.
+     */
+    public ConfigrStreamTokenizer(InputStream in_) {
+        this(in_, "=");
+    }
+
+    /**
+     * Create a new stream tokenizer with a custom separator.
+     *
+     * @param in_ Input stream.
+     * @param separator_ Separator between setting and value.
+     */
+    public ConfigrStreamTokenizer(InputStream in_, String separator_) {
+        super(separator_);
+        in = in_;
+        buf = new byte[INITIAL_BUFFER];
+    }
+
+    @Override
+    protected boolean readLine() throws IOException {
+        int scan = pos;
+        while (true) {
+            if (skipLF && pos < limit) {
+                skipLF = false;
+                if (buf[pos] == '\n') {
+                    pos++;
+                    scan = pos;
+                }
+            }
+            for (; scan < limit; scan++) {
+                byte b = buf[scan];
+                if (b == '\n' || b == '\r') {
+                    lineStart = pos;
+                    lineEnd = scan;
+                    lineOffset = bufOffset + pos;
+                    pos = scan + 1;
+                    skipLF = b == '\r';
+                    return true;
+                }
+            }
+            if (eof) {
+                if (pos == limit) {
+                    return false;
+                }
+                lineStart = pos;
+                lineEnd = limit;
+                lineOffset = bufOffset + pos;
+                pos = limit;
+                return true;
+            }
+            scan -= pos;
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            bufOffset += pos;
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+    }
+
+    @Override
+    protected int byteAt(int index) {
+        return buf[index] & 0xFF;
+    }
+
+    @Override
+    protected String decode(int from, int to) {
+        return new String(buf, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,384 @@
+package org.noviv.configr.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrInternPool;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.exceptions.ConfigrBufferException;
+
+/**
+ * Single-pass tokenizer shared by the read and import contexts. Walks UTF-8 input one line at a time and reports sections and settings without keeping the raw lines around.
+ */
+public abstract class ConfigrTokenizer implements Closeable {
+
+    /**
+     * Kind of token returned by {@link #next()}.
+     */
+    public enum Token {
+
+        /**
+         * Section header, e.g. [Name].
+         */
+        SECTION,
+        /**
+         * Setting, with or without a value.
+         */
+        SETTING,
+        /**
+         * End of input.
+         */
+        END
+    }
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private final byte[] separator;
+
+    /**
+     * Start of the current line, in the coordinates used by {@link #byteAt(int)}.
+     */
+    protected int lineStart;
+    /**
+     * End of the current line (exclusive), in the coordinates used by {@link #byteAt(int)}.
+     */
+    protected int lineEnd;
+    /**
+     * Absolute byte offset of the current line in the input.
+     */
+    protected long lineOffset;
+
+    private int lineNumber;
+
+    private int nameStart;
+    private int nameEnd;
+    private int keyEnd;
+    private int valueStart;
+    private ConfigrDataType type;
+    private long longValue;
+    private boolean plainNumber;
+
+    private ConfigrInternPool pool;
+
+    /**
+     * Create a new tokenizer.
+     *
+     * @param separator_ Separator between setting and value.
+     */
+    protected ConfigrTokenizer(String separator_) {
+        if (separator_ == null || separator_.isEmpty()) {
+            throw new ConfigrBufferException("Separator " + separator_ + " is invalid.");
+        }
+        separator = separator_.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Intern section names, keys and short values through a pool.
+     *
+     * @param pool_ Pool, or null to create new strings.
+     */
+    public void setInternPool(ConfigrInternPool pool_) {
+        pool = pool_;
+    }
+
+    /**
+     * Advance to the next line of input, setting lineStart, lineEnd and lineOffset. Line terminators are not part of the line.
+     *
+     * @return False if there is no more input.
+     * @throws IOException Thrown if the input cannot be read.
+     */
+    protected abstract boolean readLine() throws IOException;
+
+    /**
+     * Get a byte of the current line.
+     *
+     * @param index Index between lineStart and lineEnd.
+     * @return Unsigned byte value.
+     */
+    protected abstract int byteAt(int index);
+
+    /**
+     * Decode part of the current line.
+     *
+     * @param from Start index (inclusive).
+     * @param to End index (exclusive).
+     * @return Decoded string.
+     */
+    protected abstract String decode(int from, int to);
+
+    /**
+     * Read the next raw line without tokenizing it. Used for the check-head.
+     *
+     * @return The line, or null at the end of input.
+     * @throws IOException Thrown if the input cannot be read.
+     */
+    public String nextLine() throws IOException {
+        if (!readLine()) {
+            return null;
+        }
+        lineNumber++;
+        return decode(lineStart, lineEnd);
+    }
+
+    /**
+     * Advance to the next section or setting. Empty lines are skipped.
+     *
+     * @return Kind of token read.
+     * @throws IOException Thrown if the input cannot be read.
+     */
+    public Token next() throws IOException {
+        while (readLine()) {
+            lineNumber++;
+            if (lineEnd == lineStart) {
+                continue;
+            }
+            if (isSectionHeader()) {
+                return Token.SECTION;
+            }
+            int sep = indexOfSeparator();
+            if (sep < 0) {
+                keyEnd = lineEnd;
+                valueStart = lineEnd;
+                type = ConfigrDataType.NULL;
+            } else {
+                keyEnd = sep;
+                valueStart = sep + separator.length;
+                type = inferType(valueStart, lineEnd);
+            }
+            return Token.SETTING;
+        }
+        return Token.END;
+    }
+
+    /**
+     * Advance to the next section header, skipping any settings in between without tokenizing them.
+     *
+     * @return False if there are no more sections.
+     * @throws IOException Thrown if the input cannot be read.
+     */
+    public boolean nextSection() throws IOException {
+        while (readLine()) {
+            lineNumber++;
+            if (lineEnd > lineStart && isSectionHeader()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the name of the current section.
+     *
+     * @return Section name.
+     */
+    public String getSectionName() {
+        String name = decode(nameStart, nameEnd);
+        return pool == null ? name : pool.intern(name);
+    }
+
+    /**
+     * Get the current setting.
+     *
+     * @return Setting.
+     */
+    public String getKey() {
+        String key = decode(lineStart, keyEnd);
+        return pool == null ? key : pool.intern(key);
+    }
+
+    /**
+     * Get the raw value of the current setting.
+     *
+     * @return Value, or null if the setting has no value.
+     */
+    public String getValue() {
+        if (type == ConfigrDataType.NULL) {
+            return null;
+        }
+        String value = decode(valueStart, lineEnd);
+        return pool == null ? value : pool.internValue(value);
+    }
+
+    /**
+     * Get the inferred data type of the current setting.
+     *
+     * @return Data type.
+     */
+    public ConfigrDataType getType() {
+        return type;
+    }
+
+    /**
+     * Put the current setting into a map. Integer, double and boolean values are converted without decoding the value as a string first, except for doubles and for numbers whose text differs from the text of their value, like <code>007</code> or <code>1.10</code>, which keep that text.
+     *
+     * @param map Target map.
+     */
+    public void put(ConfigrSettingsMap map) {
+        put(map, getKey());
+    }
+
+    void put(ConfigrSettingsMap map, String key) {
+        switch (type) {
+            case INTEGER:
+                map.putLong(key, longValue, plainNumber ? null : getValue());
+                break;
+            case DOUBLE:
+                putDouble(map, key);
+                break;
+            case BOOLEAN:
+                map.putBoolean(key, longValue != 0);
+                break;
+            case STRING:
+                map.putString(key, getValue());
+                break;
+            default:
+                map.put(key, type);
+        }
+    }
+
+    /**
+     * Put the current integer or double setting into a map as a double, keeping its text unless it is the text of the double.
+     *
+     * @param map Target map.
+     * @param key Setting.
+     */
+    void putDouble(ConfigrSettingsMap map, String key) {
+        String text = getValue();
+        double value = Double.parseDouble(text);
+        map.putDouble(key, value, text.equals(Double.toString(value)) ? null : text);
+    }
+
+    /**
+     * Get the number of the current line, starting at 1.
+     *
+     * @return Line number.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Get the absolute byte offset of the current line.
+     *
+     * @return Byte offset.
+     */
+    public long getLineOffset() {
+        return lineOffset;
+    }
+
+    private boolean isSectionHeader() {
+        if (byteAt(lineStart) != '[') {
+            return false;
+        }
+        int close = lastIndexOf(']');
+        if (close <= lineStart) {
+            return false;
+        }
+        nameStart = lineStart + 1;
+        nameEnd = close;
+        return true;
+    }
+
+    private int lastIndexOf(int b) {
+        for (int i = lineEnd - 1; i >= lineStart; i--) {
+            if (byteAt(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfSeparator() {
+        int last = lineEnd - separator.length;
+        outer:
+        for (int i = lineStart; i <= last; i++) {
+            for (int j = 0; j < separator.length; j++) {
+                if (byteAt(i + j) != (separator[j] & 0xFF)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private ConfigrDataType inferType(int from, int to) {
+        if (equals(from, to, TRUE)) {
+            longValue = 1;
+            return ConfigrDataType.BOOLEAN;
+        }
+        if (equals(from, to, FALSE)) {
+            longValue = 0;
+            return ConfigrDataType.BOOLEAN;
+        }
+        int i = from;
+        boolean negative = i < to && byteAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        int digits = i;
+        long value = 0;
+        boolean overflow = false;
+        while (i < to && isDigit(byteAt(i))) {
+            int digit = byteAt(i) - '0';
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                overflow = true;
+            }
+            value = value * 10 - digit;
+            i++;
+        }
+        if (i == digits) {
+            return ConfigrDataType.STRING;
+        }
+        if (i == to) {
+            if (overflow || (!negative && value == Long.MIN_VALUE)) {
+                return ConfigrDataType.STRING;
+            }
+            longValue = negative ? value : -value;
+            plainNumber = value != 0 ? byteAt(digits) != '0' : !negative && i - digits == 1;
+            return ConfigrDataType.INTEGER;
+        }
+        if (byteAt(i) != '.') {
+            return ConfigrDataType.STRING;
+        }
+        int fraction = ++i;
+        while (i < to && isDigit(byteAt(i))) {
+            i++;
+        }
+        if (i == fraction) {
+            return ConfigrDataType.STRING;
+        }
+        if (i < to && (byteAt(i) == 'E' || byteAt(i) == 'e')) {
+            i++;
+            if (i < to && (byteAt(i) == '-' || byteAt(i) == '+')) {
+                i++;
+            }
+            int exponent = i;
+            while (i < to && isDigit(byteAt(i))) {
+                i++;
+            }
+            if (i == exponent) {
+                return ConfigrDataType.STRING;
+            }
+        }
+        return i == to ? ConfigrDataType.DOUBLE : ConfigrDataType.STRING;
+    }
+
+    private boolean equals(int from, int to, byte[] word) {
+        if (to - from != word.length) {
+            return false;
+        }
+        for (int j = 0; j < word.length; j++) {
+            if (byteAt(from + j) != word[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(int b) {
+        return b >= '0' && b <= '9';
+    }
+}
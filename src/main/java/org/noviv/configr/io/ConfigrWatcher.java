@@ -0,0 +1,276 @@
+package org.noviv.configr.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.noviv.configr.exceptions.ConfigrIOException;
+
+/**
+ * Watches files with a WatchService and runs a task in the background after they change. Bursts of events for the same file are debounced into a single run. Files replaced by the library itself, such as a ConfigrFile writing its settings, do not run the task as long as they are unchanged since.
+ */
+public class ConfigrWatcher implements Closeable {
+
+    private static ConfigrWatcher defaultWatcher;
+    private static final CopyOnWriteArrayList<ConfigrWatcher> open = new CopyOnWriteArrayList<>();
+
+    private final WatchService service;
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final HashMap<Path, WatchKey> directories;
+    private final HashMap<Path, List<Watch>> watches;
+
+    /**
+     * Create a new watcher with its own watch and refresh threads.
+     */
+    public ConfigrWatcher() {
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new ConfigrIOException("Could not create watch service: " + e.getMessage());
+        }
+        directories = new HashMap<>();
+        watches = new HashMap<>();
+        executor = new ScheduledThreadPoolExecutor(1, daemon("Configr refresh"));
+        executor.setRemoveOnCancelPolicy(true);
+        Thread thread = daemon("Configr watcher").newThread(new Runnable() {
+
+            @Override
+            public void run() {
+                poll();
+            }
+        });
+        thread.start();
+        open.add(this);
+    }
+
+    /**
+     * Get the watcher shared by all contexts that do not supply their own.
+     *
+     * @return Default watcher.
+     */
+    public static synchronized ConfigrWatcher getDefault() {
+        if (defaultWatcher == null) {
+            defaultWatcher = new ConfigrWatcher();
+        }
+        return defaultWatcher;
+    }
+
+    /**
+     * Run a task whenever a file changes.
+     *
+     * @param file File to watch.
+     * @param debounceMillis Time without further events before the task runs.
+     * @param task Task to run on the refresh thread.
+     * @return Watch, used to stop watching.
+     */
+    public Watch watch(File file, long debounceMillis, Runnable task) {
+        Path path = file.getAbsoluteFile().toPath().normalize();
+        Path dir = path.getParent();
+        Watch watch = new Watch(path, debounceMillis, task);
+        synchronized (this) {
+            if (!directories.containsKey(dir)) {
+                try {
+                    directories.put(dir, dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE));
+                } catch (IOException e) {
+                    throw new ConfigrIOException("Could not watch directory: " + e.getMessage());
+                }
+            }
+            List<Watch> list = watches.get(path);
+            if (list == null) {
+                list = new ArrayList<>();
+                watches.put(path, list);
+            }
+            list.add(watch);
+        }
+        return watch;
+    }
+
+    /**
+     * Record that the library replaced a file, so that watches of the file skip the events of this write.
+     *
+     * @param file Replaced file.
+     */
+    static void written(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        Object stamp = null;
+        for (ConfigrWatcher watcher : open) {
+            synchronized (watcher) {
+                List<Watch> list = watcher.watches.get(path);
+                if (list == null) {
+                    continue;
+                }
+                if (stamp == null) {
+                    stamp = stamp(path);
+                }
+                for (Watch w : list) {
+                    w.written = stamp;
+                }
+            }
+        }
+    }
+
+    private static Object stamp(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return Arrays.asList(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private synchronized void unwatch(Watch watch) {
+        List<Watch> list = watches.get(watch.path);
+        if (list == null || !list.remove(watch)) {
+            return;
+        }
+        if (list.isEmpty()) {
+            watches.remove(watch.path);
+        }
+        Path dir = watch.path.getParent();
+        for (Path p : watches.keySet()) {
+            if (p.getParent().equals(dir)) {
+                return;
+            }
+        }
+        WatchKey key = directories.remove(dir);
+        if (key != null) {
+            key.cancel();
+        }
+    }
+
+    private void poll() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                synchronized (this) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        for (List<Watch> list : watches.values()) {
+                            for (Watch w : list) {
+                                if (w.path.getParent().equals(dir)) {
+                                    w.schedule();
+                                }
+                            }
+                        }
+                    } else {
+                        List<Watch> list = watches.get(dir.resolve((Path) event.context()));
+                        if (list != null) {
+                            for (Watch w : list) {
+                                w.schedule();
+                            }
+                        }
+                    }
+                }
+            }
+            if (!key.reset()) {
+                synchronized (this) {
+                    directories.remove(dir);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop watching all files and shut down the watcher threads.
+     */
+    @Override
+    public void close() {
+        synchronized (ConfigrWatcher.class) {
+            if (defaultWatcher == this) {
+                defaultWatcher = null;
+            }
+        }
+        open.remove(this);
+        executor.shutdownNow();
+        try {
+            service.close();
+        } catch (IOException e) {
+        }
+    }
+
+    private static ThreadFactory daemon(final String name) {
+        return new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+
+    /**
+     * A watched file and the task run when it changes.
+     */
+    public final class Watch {
+
+        private final Path path;
+        private final long debounceMillis;
+        private final Runnable task;
+        private ScheduledFuture<?> pending;
+        private volatile Object written;
+
+        private Watch(Path path_, long debounceMillis_, Runnable task_) {
+            path = path_;
+            debounceMillis = debounceMillis_;
+            task = task_;
+        }
+
+        private synchronized void schedule() {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            pending = executor.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    Object stamp = written;
+                    if (stamp != null && stamp.equals(stamp(path))) {
+                        return;
+                    }
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                    }
+                }
+            }, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Stop watching the file. A pending run is cancelled.
+         */
+        public void cancel() {
+            synchronized (this) {
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+            }
+            unwatch(this);
+        }
+    }
+}
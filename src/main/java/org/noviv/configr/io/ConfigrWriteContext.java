@@ -1,24 +1,80 @@
 package org.noviv.configr.io;
 
-import java.io.PrintWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import org.noviv.configr.Configr;
 import org.noviv.configr.ConfigrFile;
 import org.noviv.configr.exceptions.ConfigrBufferException;
+import org.noviv.configr.exceptions.ConfigrIOException;
+import org.noviv.configr.metrics.ConfigrMetrics;
+import org.noviv.configr.metrics.ConfigrMetricsSink;
 
 /**
  * The context in which a file is written to the system. Must only be flushed once, or reset.
+ * <p>
+ * Entries are encoded as UTF-8 straight into a byte buffer. A context created for a target file streams that buffer into a temporary file next to the target; otherwise the buffer is kept in memory until flushed. Flushing forces the temporary file to disk and atomically renames it over the target, so a failed or interrupted write never leaves a truncated config behind.
  */
-public class ConfigrWriteContext {
+public class ConfigrWriteContext implements Closeable {
 
-    private String writeBuffer;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CharsetEncoder encoder;
+    private ByteBuffer writeBuffer;
     private boolean flushed;
 
+    private final Path target;
+    private Path temp;
+    private FileChannel channel;
+    private long bytesWritten;
+    private long started;
+
     /**
-     * Create a new write context.
+     * Create a new write context, buffered in memory until it is flushed.
      */
     public ConfigrWriteContext() {
-        writeBuffer = Configr.getCheckHead() + "\n";
+        this(null);
+    }
+
+    /**
+     * Create a new write context that streams to a temporary file and replaces the target when flushed.
+     *
+     * @param target_ Target file, or null to buffer in memory.
+     */
+    public ConfigrWriteContext(File target_) {
+        encoder = StandardCharsets.UTF_8.newEncoder();
+        writeBuffer = ByteBuffer.allocate(target_ == null ? 256 : BUFFER_SIZE);
+        target = target_ == null ? null : target_.getAbsoluteFile().toPath();
+        start();
+    }
+
+    private void start() {
         flushed = false;
+        bytesWritten = 0;
+        started = System.nanoTime();
+        writeBuffer.clear();
+        if (target != null) {
+            try {
+                temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+                channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                discard();
+                throw new ConfigrIOException("Could not create temporary file for " + target + ": " + e.getMessage());
+            }
+        }
+        put(Configr.getCheckHead());
+        put("\n");
     }
 
     /**
@@ -30,28 +86,71 @@ public class ConfigrWriteContext {
         if (flushed) {
             throw new ConfigrBufferException("Buffer already flushed, cannot write.");
         }
-        writeBuffer += "[" + name + "]\n";
+        put("[");
+        put(name);
+        put("]\n");
     }
 
     /**
      * Buffer a setting.
      *
      * @param a Setting.
-     * @param b Value.
+     * @param b Value, or null to write the bare setting, which is read back without a value.
      */
     public void buffer(String a, String b) {
         if (flushed) {
             throw new ConfigrBufferException("Buffer already flushed, cannot write.");
         }
-        writeBuffer += a + "=" + b + "\n";
+        put(a);
+        if (b != null) {
+            put("=");
+            put(b);
+        }
+        put("\n");
+    }
+
+    private void put(String s) {
+        CharBuffer chars = CharBuffer.wrap(String.valueOf(s));
+        while (true) {
+            CoderResult result = encoder.encode(chars, writeBuffer, true);
+            if (result.isUnderflow()) {
+                break;
+            }
+            if (result.isOverflow()) {
+                drain();
+            } else {
+                throw new ConfigrBufferException("Could not encode value: " + s);
+            }
+        }
+        encoder.reset();
+    }
+
+    private void drain() {
+        if (channel == null) {
+            ByteBuffer larger = ByteBuffer.allocate(writeBuffer.capacity() * 2);
+            writeBuffer.flip();
+            larger.put(writeBuffer);
+            writeBuffer = larger;
+            return;
+        }
+        writeBuffer.flip();
+        try {
+            while (writeBuffer.hasRemaining()) {
+                bytesWritten += channel.write(writeBuffer);
+            }
+        } catch (IOException e) {
+            discard();
+            throw new ConfigrIOException("Could not write " + target + ": " + e.getMessage());
+        }
+        writeBuffer.clear();
     }
 
     /**
      * Reset the context, allowing it to be flushed again.
      */
     public void reset() {
-        writeBuffer = Configr.getCheckHead() + "\n";
-        flushed = false;
+        discard();
+        start();
     }
 
     /**
@@ -60,14 +159,103 @@ public class ConfigrWriteContext {
      * @param file The target ConfigrFile to which the buffer should be flushed.
      */
     public void flush(ConfigrFile file) {
+        Path path = file.toFile().getAbsoluteFile().toPath();
+        if (target != null && !target.equals(path)) {
+            throw new ConfigrBufferException("Write context was created for " + target + ", not " + path);
+        }
+        if (flushed) {
+            throw new ConfigrBufferException("Buffer already flushed, cannot write.");
+        }
         flushed = true;
-        PrintWriter pw;
+        if (target == null) {
+            try {
+                temp = Files.createTempFile(path.getParent(), "." + path.getFileName(), ".tmp");
+                channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                discard();
+                throw new ConfigrIOException("Could not create temporary file for " + path + ": " + e.getMessage());
+            }
+        }
+        drain();
         try {
-            pw = new PrintWriter(file.toFile());
-            pw.write(writeBuffer);
-            pw.flush();
-            pw.close();
-        } catch (Exception ex) {
+            channel.force(true);
+            channel.close();
+            channel = null;
+            replace(temp, path);
+            temp = null;
+        } catch (IOException e) {
+            discard();
+            throw new ConfigrIOException("Could not write " + path + ": " + e.getMessage());
+        }
+        ConfigrMetricsSink sink = ConfigrMetrics.getSink();
+        if (sink != null) {
+            sink.written(path.toString(), bytesWritten, System.nanoTime() - started);
         }
     }
+
+    /**
+     * Atomically replace a file with a temporary file that was forced to disk, keeping the permissions of the file. Watchers of the file ignore the replacement.
+     *
+     * @param temp Temporary file in the same directory.
+     * @param target File to replace.
+     * @throws IOException Thrown if the file cannot be replaced.
+     */
+    static void replace(Path temp, Path target) throws IOException {
+        copyPermissions(target, temp);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        ConfigrWatcher.written(target);
+        syncDirectory(target.getParent());
+    }
+
+    private static void copyPermissions(Path from, Path to) {
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (IOException | UnsupportedOperationException e) {
+        }
+    }
+
+    private static void syncDirectory(Path dir) {
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException e) {
+        }
+    }
+
+    /**
+     * Get the number of bytes written by the last flush, or streamed so far.
+     *
+     * @return Bytes written.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private void discard() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+            }
+            channel = null;
+        }
+        if (temp != null) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+            }
+            temp = null;
+        }
+    }
+
+    /**
+     * Discard the temporary file of a context that was not flushed.
+     */
+    @Override
+    public void close() {
+        discard();
+    }
 }
@@ -0,0 +1,289 @@
+package org.noviv.configr.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+/**
+ * Sink that keeps running totals in memory, for export to a monitoring system or for inspection in tests.
+ * <p>
+ * Lookups are counted per config and setting. The number of distinct settings counted is bounded, so configs with generated keys cannot grow the sink without limit; lookups of further settings are only counted in total.
+ */
+public class ConfigrCountingSink implements ConfigrMetricsSink {
+
+    private static final int DEFAULT_MAX_SETTINGS = 10000;
+
+    private final AtomicLong parses = new AtomicLong();
+    private final AtomicLong parseBytes = new AtomicLong();
+    private final AtomicLong parseLines = new AtomicLong();
+    private final AtomicLong parseSections = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+    private final AtomicLong refreshNanos = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong writeBytes = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicLong>> lookups = new ConcurrentHashMap<>();
+    private final AtomicInteger settings = new AtomicInteger();
+    private final AtomicLong untrackedLookups = new AtomicLong();
+    private final int maxSettings;
+
+    /**
+     * Create a new sink that counts the lookups of up to 10000 settings.
+     */
+    public ConfigrCountingSink() {
+        this(DEFAULT_MAX_SETTINGS);
+    }
+
+    /**
+     * Create a new sink.
+     *
+     * @param maxSettings_ Maximum number of distinct settings whose lookups are counted.
+     */
+    public ConfigrCountingSink(int maxSettings_) {
+        if (maxSettings_ < 0) {
+            throw new ConfigrValidationException("Maximum number of settings must not be negative: " + maxSettings_);
+        }
+        maxSettings = maxSettings_;
+    }
+
+    @Override
+    public void parsed(String source, long bytes, int lines, int sections, long nanos) {
+        parses.incrementAndGet();
+        parseBytes.addAndGet(bytes);
+        parseLines.addAndGet(lines);
+        parseSections.addAndGet(sections);
+        parseNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public void refreshed(String source, long nanos, boolean success) {
+        refreshes.incrementAndGet();
+        if (!success) {
+            failedRefreshes.incrementAndGet();
+        }
+        refreshNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public void cacheLookup(String source, boolean hit) {
+        (hit ? cacheHits : cacheMisses).incrementAndGet();
+    }
+
+    @Override
+    public void lookup(String config, String key) {
+        if (config == null) {
+            config = "";
+        }
+        ConcurrentHashMap<String, AtomicLong> keys = lookups.get(config);
+        AtomicLong count = keys == null ? null : keys.get(key);
+        if (count == null) {
+            if (settings.incrementAndGet() > maxSettings) {
+                settings.decrementAndGet();
+                untrackedLookups.incrementAndGet();
+                return;
+            }
+            if (keys == null) {
+                ConcurrentHashMap<String, AtomicLong> created = new ConcurrentHashMap<>();
+                keys = lookups.putIfAbsent(config, created);
+                if (keys == null) {
+                    keys = created;
+                }
+            }
+            AtomicLong created = new AtomicLong();
+            count = keys.putIfAbsent(key, created);
+            if (count == null) {
+                count = created;
+            } else {
+                settings.decrementAndGet();
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    @Override
+    public void written(String target, long bytes, long nanos) {
+        writes.incrementAndGet();
+        writeBytes.addAndGet(bytes);
+        writeNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Get the number of parses.
+     *
+     * @return Parses.
+     */
+    public long getParses() {
+        return parses.get();
+    }
+
+    /**
+     * Get the number of bytes parsed.
+     *
+     * @return Bytes.
+     */
+    public long getParseBytes() {
+        return parseBytes.get();
+    }
+
+    /**
+     * Get the number of lines parsed.
+     *
+     * @return Lines.
+     */
+    public long getParseLines() {
+        return parseLines.get();
+    }
+
+    /**
+     * Get the number of sections parsed.
+     *
+     * @return Sections.
+     */
+    public long getParseSections() {
+        return parseSections.get();
+    }
+
+    /**
+     * Get the total duration of all parses.
+     *
+     * @return Nanoseconds.
+     */
+    public long getParseNanos() {
+        return parseNanos.get();
+    }
+
+    /**
+     * Get the number of refreshes, including failed ones.
+     *
+     * @return Refreshes.
+     */
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    /**
+     * Get the number of failed refreshes.
+     *
+     * @return Failed refreshes.
+     */
+    public long getFailedRefreshes() {
+        return failedRefreshes.get();
+    }
+
+    /**
+     * Get the total duration of all refreshes.
+     *
+     * @return Nanoseconds.
+     */
+    public long getRefreshNanos() {
+        return refreshNanos.get();
+    }
+
+    /**
+     * Get the number of cache hits.
+     *
+     * @return Hits.
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Get the number of cache misses.
+     *
+     * @return Misses.
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Get the number of writes.
+     *
+     * @return Writes.
+     */
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * Get the number of bytes written.
+     *
+     * @return Bytes.
+     */
+    public long getWriteBytes() {
+        return writeBytes.get();
+    }
+
+    /**
+     * Get the total duration of all writes.
+     *
+     * @return Nanoseconds.
+     */
+    public long getWriteNanos() {
+        return writeNanos.get();
+    }
+
+    /**
+     * Get the number of lookups of a setting of one config.
+     *
+     * @param config Name of the config.
+     * @param key Setting.
+     * @return Lookups.
+     */
+    public long getLookups(String config, String key) {
+        ConcurrentHashMap<String, AtomicLong> keys = lookups.get(config == null ? "" : config);
+        AtomicLong count = keys == null ? null : keys.get(key);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Get the number of lookups of a setting, summed over all configs that have it.
+     *
+     * @param key Setting.
+     * @return Lookups.
+     */
+    public long getLookups(String key) {
+        long total = 0;
+        for (ConcurrentHashMap<String, AtomicLong> keys : lookups.values()) {
+            AtomicLong count = keys.get(key);
+            if (count != null) {
+                total += count.get();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of lookups of every setting that was counted.
+     *
+     * @return Lookups by config name and setting.
+     */
+    public Map<String, Map<String, Long>> getLookups() {
+        HashMap<String, Map<String, Long>> result = new HashMap<>();
+        for (Map.Entry<String, ConcurrentHashMap<String, AtomicLong>> c : lookups.entrySet()) {
+            HashMap<String, Long> keys = new HashMap<>();
+            for (Map.Entry<String, AtomicLong> e : c.getValue().entrySet()) {
+                keys.put(e.getKey(), e.getValue().get());
+            }
+            result.put(c.getKey(), keys);
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of lookups that were not counted per setting, because the maximum number of settings was reached.
+     *
+     * @return Lookups.
+     */
+    public long getUntrackedLookups() {
+        return untrackedLookups.get();
+    }
+}
@@ -0,0 +1,153 @@
+package org.noviv.configr.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Sink that emits JDK Flight Recorder events in the "Configr" category. Events are only built when a recording has them enabled. Lookup events are disabled by default, since they are emitted for every setting read; enable <code>org.noviv.configr.Lookup</code> in the recording settings to see them. This class needs the <code>jdk.jfr</code> module and is only loaded once it is installed.
+ */
+public class ConfigrJfrSink implements ConfigrMetricsSink {
+
+    @Override
+    public void parsed(String source, long bytes, int lines, int sections, long nanos) {
+        ParseEvent event = new ParseEvent();
+        if (event.isEnabled()) {
+            event.source = source;
+            event.bytes = bytes;
+            event.lines = lines;
+            event.sections = sections;
+            event.parseTime = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void refreshed(String source, long nanos, boolean success) {
+        RefreshEvent event = new RefreshEvent();
+        if (event.isEnabled()) {
+            event.source = source;
+            event.refreshTime = nanos;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void cacheLookup(String source, boolean hit) {
+        CacheEvent event = new CacheEvent();
+        if (event.isEnabled()) {
+            event.source = source;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void lookup(String config, String key) {
+        LookupEvent event = new LookupEvent();
+        if (event.isEnabled()) {
+            event.config = config;
+            event.key = key;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void written(String target, long bytes, long nanos) {
+        WriteEvent event = new WriteEvent();
+        if (event.isEnabled()) {
+            event.target = target;
+            event.bytes = bytes;
+            event.writeTime = nanos;
+            event.commit();
+        }
+    }
+
+    @Name("org.noviv.configr.Parse")
+    @Label("Configr Parse")
+    @Category("Configr")
+    @Description("A config file was parsed")
+    @StackTrace(false)
+    static final class ParseEvent extends Event {
+
+        @Label("Source")
+        String source;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+        @Label("Lines")
+        int lines;
+        @Label("Sections")
+        int sections;
+        @Label("Parse Time")
+        @Timespan
+        long parseTime;
+    }
+
+    @Name("org.noviv.configr.Refresh")
+    @Label("Configr Refresh")
+    @Category("Configr")
+    @Description("A read or import context was refreshed")
+    @StackTrace(false)
+    static final class RefreshEvent extends Event {
+
+        @Label("Source")
+        String source;
+        @Label("Refresh Time")
+        @Timespan
+        long refreshTime;
+        @Label("Success")
+        boolean success;
+    }
+
+    @Name("org.noviv.configr.Cache")
+    @Label("Configr Cache Lookup")
+    @Category("Configr")
+    @Description("A file was looked up in a file cache")
+    @StackTrace(false)
+    static final class CacheEvent extends Event {
+
+        @Label("Source")
+        String source;
+        @Label("Hit")
+        boolean hit;
+    }
+
+    @Name("org.noviv.configr.Lookup")
+    @Label("Configr Lookup")
+    @Category("Configr")
+    @Description("A setting was read")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class LookupEvent extends Event {
+
+        @Label("Config")
+        String config;
+        @Label("Key")
+        String key;
+    }
+
+    @Name("org.noviv.configr.Write")
+    @Label("Configr Write")
+    @Category("Configr")
+    @Description("A config file was written")
+    @StackTrace(false)
+    static final class WriteEvent extends Event {
+
+        @Label("Target")
+        String target;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+        @Label("Write Time")
+        @Timespan
+        long writeTime;
+    }
+}
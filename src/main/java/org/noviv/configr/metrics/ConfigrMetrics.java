@@ -0,0 +1,51 @@
+package org.noviv.configr.metrics;
+
+/**
+ * Holder of the installed metrics sink. No sink is installed by default; instrumented code then only reads one field and skips all measurements. Lookups are tracked separately, since they are far more frequent than any other measurement.
+ */
+public class ConfigrMetrics {
+
+    private static volatile ConfigrMetricsSink sink;
+    private static volatile ConfigrMetricsSink lookupSink;
+
+    private ConfigrMetrics() {
+    }
+
+    /**
+     * Install a sink for all measurements except lookups.
+     *
+     * @param sink_ Sink, or null to disable instrumentation.
+     */
+    public static void setSink(ConfigrMetricsSink sink_) {
+        setSink(sink_, false);
+    }
+
+    /**
+     * Install a sink.
+     *
+     * @param sink_ Sink, or null to disable instrumentation.
+     * @param trackLookups True means every setting read from a ConfigrFile is reported as well.
+     */
+    public static synchronized void setSink(ConfigrMetricsSink sink_, boolean trackLookups) {
+        sink = sink_;
+        lookupSink = trackLookups ? sink_ : null;
+    }
+
+    /**
+     * Get the installed sink.
+     *
+     * @return Sink, or null if instrumentation is disabled.
+     */
+    public static ConfigrMetricsSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Get the installed sink if lookups are tracked.
+     *
+     * @return Sink, or null if lookups are not tracked.
+     */
+    public static ConfigrMetricsSink getLookupSink() {
+        return lookupSink;
+    }
+}
@@ -0,0 +1,52 @@
+package org.noviv.configr.metrics;
+
+/**
+ * Receives measurements from Configr. Install a sink through {@link ConfigrMetrics#setSink(ConfigrMetricsSink)}. Methods are called on the thread doing the work, possibly from several threads at once, so they should return quickly and must be thread-safe.
+ */
+public interface ConfigrMetricsSink {
+
+    /**
+     * A file was parsed by a read or import context.
+     *
+     * @param source Path of the file.
+     * @param bytes Size of the input.
+     * @param lines Number of lines read.
+     * @param sections Number of sections found.
+     * @param nanos Duration of the parse.
+     */
+    void parsed(String source, long bytes, int lines, int sections, long nanos);
+
+    /**
+     * A read or import context was refreshed.
+     *
+     * @param source Path of the file.
+     * @param nanos Duration of the refresh, including the parse.
+     * @param success False means the refresh failed and the previous settings were kept.
+     */
+    void refreshed(String source, long nanos, boolean success);
+
+    /**
+     * A file was looked up in a ConfigrFileCache.
+     *
+     * @param source Path of the file.
+     * @param hit True means the cached import was used.
+     */
+    void cacheLookup(String source, boolean hit);
+
+    /**
+     * A setting was read through the getters of a ConfigrFile. Only called when lookups are tracked.
+     *
+     * @param config Name of the config.
+     * @param key Setting.
+     */
+    void lookup(String config, String key);
+
+    /**
+     * A file was written by a write context.
+     *
+     * @param target Path of the file.
+     * @param bytes Number of bytes written.
+     * @param nanos Duration from the start of the write until the file was replaced.
+     */
+    void written(String target, long bytes, long nanos);
+}
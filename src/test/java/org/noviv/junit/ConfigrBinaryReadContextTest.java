@@ -0,0 +1,128 @@
+package org.noviv.junit;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+import org.noviv.configr.io.ConfigrBinaryConverter;
+import org.noviv.configr.io.ConfigrBinaryReadContext;
+import org.noviv.configr.io.ConfigrImportContext;
+import org.noviv.configr.io.ConfigrReadContext;
+
+public class ConfigrBinaryReadContextTest {
+
+    /**
+     * Test of getSetting method, of class ConfigrBinaryReadContext.
+     */
+    @Test
+    public void testGetSetting() throws Exception {
+        System.out.println("getSetting");
+        File dir = Files.createTempDirectory("configr").toFile();
+        File text = new File(dir, "test.cfgr");
+        File binary = new File(dir, "test.cfgrb");
+        ConfigrFile file = new ConfigrFile("Test", text.getPath());
+        for (int i = 0; i < 10000; i++) {
+            file.set("key" + i, i);
+        }
+        file.set("big", Long.MAX_VALUE);
+        file.set("ratio", 0.25);
+        file.set("working", true);
+        file.set("name", "välue");
+        file.write(true);
+        ConfigrBinaryConverter.toBinary(text, binary);
+
+        ConfigrBinaryReadContext read = new ConfigrBinaryReadContext(binary);
+        assertArrayEquals(new String[]{"Test"}, read.getSectionNames());
+        assertEquals(9999, read.getInt("Test", "key9999"));
+        assertEquals(Long.MAX_VALUE, read.getLong("Test", "big"));
+        assertEquals(0.25, read.getDouble("Test", "ratio"), 0);
+        assertTrue(read.getBoolean("Test", "working"));
+        assertEquals("välue", read.getString("Test", "name"));
+        assertEquals(ConfigrDataType.INTEGER, read.getType("Test", "key0"));
+        assertNull(read.getSetting("Test", "missing"));
+        assertNull(read.getType("Test", "missing"));
+        try {
+            read.getBoolean("Test", "ratio");
+            fail("Setting is a double");
+        } catch (ConfigrValidationException e) {
+        }
+
+        File back = new File(dir, "back.cfgr");
+        ConfigrBinaryConverter.toText(binary, back);
+        ConfigrFile result = new ConfigrReadContext(back).getConfigrFile();
+        assertEquals("Test", result.getName());
+        assertEquals(file.getSettings().size(), result.getSettings().size());
+        assertEquals("välue", result.getString("name"));
+        assertEquals(9999, result.getInt("key9999"));
+    }
+
+    /**
+     * Test of getConfigrFiles method, of class ConfigrBinaryReadContext.
+     */
+    @Test
+    public void testGetConfigrFiles() throws Exception {
+        System.out.println("getConfigrFiles");
+        ConfigrFile[] imported = new ConfigrImportContext(ConfigrImportContextTest.createFile(
+                "loose=1\n[First]\na=1\nb=text\n[Second]\nc=true\n")).getImportedFiles();
+        File binary = File.createTempFile("configr", ".cfgrb");
+        binary.deleteOnExit();
+        ConfigrBinaryConverter.toBinary(imported, binary);
+
+        ConfigrBinaryReadContext read = new ConfigrBinaryReadContext(binary);
+        ConfigrImportContextTest.assertSameFiles(imported, read.getConfigrFiles());
+        assertEquals("text", read.getString("First", "b"));
+        assertTrue(read.getBoolean("Second", "c"));
+        assertEquals(1, read.getInt("Null Config", "loose"));
+        try {
+            ConfigrBinaryConverter.toText(binary, new File(binary.getPath() + ".cfgr"));
+            fail("Binary config has several sections");
+        } catch (ConfigrValidationException e) {
+        }
+    }
+
+    /**
+     * Test of reading corrupt files, of class ConfigrBinaryReadContext.
+     */
+    @Test
+    public void testCorrupt() throws Exception {
+        System.out.println("corrupt");
+        ConfigrFile[] imported = new ConfigrImportContext(ConfigrImportContextTest.createFile(
+                "[First]\na=1\nb=text\nbig=10000000000\n[Second]\nc=true\nd=0.5\n")).getImportedFiles();
+        File binary = File.createTempFile("configr", ".cfgrb");
+        binary.deleteOnExit();
+        ConfigrBinaryConverter.toBinary(imported, binary);
+        ConfigrBinaryReadContext read = new ConfigrBinaryReadContext(binary);
+        assertEquals(1, read.getSetting("First", "a"));
+        assertEquals(imported[0].getSetting("big"), read.getSetting("First", "big"));
+        assertEquals(imported[0].getSetting("a").getClass(), read.getSetting("First", "a").getClass());
+
+        byte[] bytes = Files.readAllBytes(binary.toPath());
+        File corrupt = File.createTempFile("configr", ".cfgrb");
+        corrupt.deleteOnExit();
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] copy = bytes.clone();
+            copy[i] = (byte) 0xFF;
+            Files.write(corrupt.toPath(), copy);
+            readAll(corrupt);
+            Files.write(corrupt.toPath(), Arrays.copyOf(bytes, i));
+            readAll(corrupt);
+        }
+    }
+
+    private static void readAll(File f) throws Exception {
+        try {
+            ConfigrBinaryReadContext read = new ConfigrBinaryReadContext(f);
+            read.getConfigrFiles();
+            for (String key : new String[]{"a", "b", "big", "c", "d"}) {
+                for (String section : read.getSectionNames()) {
+                    read.getSetting(section, key);
+                }
+            }
+        } catch (ConfigrValidationException e) {
+        }
+    }
+}
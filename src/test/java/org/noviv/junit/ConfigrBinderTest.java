@@ -0,0 +1,111 @@
+package org.noviv.junit;
+
+import java.lang.reflect.Proxy;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.ConfigrBinder;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.ConfigrSetting;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+public class ConfigrBinderTest {
+
+    public interface DbConfig {
+
+        int poolSize();
+
+        String host();
+
+        @ConfigrSetting("db.timeout")
+        double timeout();
+
+        Boolean ssl();
+
+        long maxRows();
+
+        default String url() {
+            return "jdbc://" + host() + "?timeout=" + timeout();
+        }
+
+        @Override
+        String toString();
+    }
+
+    interface PoolConfig {
+
+        Integer poolSize();
+
+        boolean ssl();
+    }
+
+    public interface BrokenConfig {
+
+        int host();
+    }
+
+    public interface SetterConfig {
+
+        void host(String host);
+    }
+
+    public interface VoidConfig {
+
+        void reset();
+    }
+
+    /**
+     * Test of bind method, of class ConfigrBinder.
+     */
+    @Test
+    public void testBind() {
+        System.out.println("bind");
+        ConfigrFile file = new ConfigrFile("Db");
+        file.set("poolSize", 16);
+        file.set("host", "db.local");
+        file.set("db.timeout", 2.5);
+        file.set("ssl", true);
+        file.set("maxRows", 10000000000L);
+
+        DbConfig config = ConfigrBinder.bind(file, DbConfig.class);
+        assertEquals(16, config.poolSize());
+        assertEquals("db.local", config.host());
+        assertEquals(2.5, config.timeout(), 0);
+        assertTrue(config.ssl());
+        assertEquals(10000000000L, config.maxRows());
+        assertEquals("jdbc://db.local?timeout=2.5", config.url());
+        assertEquals("DbConfig[Db]", config.toString());
+        assertEquals(System.identityHashCode(config), config.hashCode());
+        assertTrue(config.equals(config));
+
+        file.set("poolSize", 32);
+        assertEquals(32, config.poolSize());
+        assertFalse(Proxy.isProxyClass(config.getClass()));
+        assertSame(config.getClass(), ConfigrBinder.bind(file, DbConfig.class).getClass());
+
+        PoolConfig pool = ConfigrBinder.bind(file, PoolConfig.class);
+        assertEquals(Integer.valueOf(32), pool.poolSize());
+        assertTrue(pool.ssl());
+        assertEquals("PoolConfig[Db]", pool.toString());
+
+        try {
+            ConfigrBinder.bind(file, BrokenConfig.class);
+            fail("Setting is a string");
+        } catch (ConfigrValidationException e) {
+        }
+        try {
+            ConfigrBinder.bind(file, SetterConfig.class);
+            fail("Method is not an accessor");
+        } catch (ConfigrValidationException e) {
+        }
+        try {
+            ConfigrBinder.bind(file, VoidConfig.class);
+            fail("Method is not an accessor");
+        } catch (ConfigrValidationException e) {
+        }
+        try {
+            ConfigrBinder.bind(new ConfigrFile("Empty"), DbConfig.class);
+            fail("Settings are missing");
+        } catch (ConfigrValidationException e) {
+        }
+    }
+}
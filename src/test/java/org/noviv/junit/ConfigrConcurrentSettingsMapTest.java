@@ -0,0 +1,86 @@
+package org.noviv.junit;
+
+import java.util.function.BiFunction;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.data.ConfigrConcurrentSettingsMap;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+public class ConfigrConcurrentSettingsMapTest {
+
+    /**
+     * Test of increment method, of class ConfigrConcurrentSettingsMap.
+     */
+    @Test
+    public void testIncrement() throws Exception {
+        System.out.println("increment");
+        final ConfigrConcurrentSettingsMap map = new ConfigrConcurrentSettingsMap(4);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        map.increment("count", 1);
+                        map.increment("ratio", 0.5);
+                        map.putInt("key" + id + "." + i, i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(8000, map.getLong("count"));
+        assertEquals(4000, map.getDouble("ratio"), 0);
+        assertEquals(8002, map.size());
+        assertEquals(8002, map.getSettings().size());
+        try {
+            map.increment("ratio", 1L);
+            fail("Setting is a double");
+        } catch (ConfigrValidationException e) {
+        }
+    }
+
+    /**
+     * Test of compareAndSet method, of class ConfigrConcurrentSettingsMap.
+     */
+    @Test
+    public void testCompareAndSet() {
+        System.out.println("compareAndSet");
+        ConfigrConcurrentSettingsMap map = new ConfigrConcurrentSettingsMap();
+        assertTrue(map.putIfAbsent("mode", "on", ConfigrDataType.STRING));
+        assertFalse(map.putIfAbsent("mode", "off", ConfigrDataType.STRING));
+        assertFalse(map.compareAndSet("mode", "off", true));
+        assertTrue(map.compareAndSet("mode", "on", true));
+        assertEquals(ConfigrDataType.BOOLEAN, map.getType("mode"));
+        assertTrue(map.compareAndSet("count", null, 1));
+        assertTrue(map.compareAndSet("count", 1L, 2));
+        assertEquals(2, map.getInt("count"));
+
+        Object value = map.compute("count", new BiFunction<String, Object, Object>() {
+
+            @Override
+            public Object apply(String key, Object current) {
+                return ((Number) current).intValue() * 10;
+            }
+        });
+        assertEquals(20, value);
+        assertEquals(20, map.getInt("count"));
+
+        ConfigrSettingsMap snapshot = map.snapshot();
+        map.putInt("count", 30);
+        assertEquals(20, snapshot.getInt("count"));
+        assertTrue(snapshot.getBoolean("mode"));
+
+        ConfigrSettingsMap plain = new ConfigrSettingsMap();
+        plain.putAll(map);
+        assertEquals(30, plain.getInt("count"));
+        assertEquals(2, plain.size());
+    }
+}
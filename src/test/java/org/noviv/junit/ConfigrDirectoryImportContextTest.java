@@ -0,0 +1,88 @@
+package org.noviv.junit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.ConfigrLayeredConfig;
+import org.noviv.configr.io.ConfigrDirectoryImportContext;
+import org.noviv.configr.io.ConfigrImportContext;
+
+public class ConfigrDirectoryImportContextTest {
+
+    private static void write(File f, String content) throws Exception {
+        f.getParentFile().mkdirs();
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Test of getImportedFiles method, of class ConfigrDirectoryImportContext.
+     */
+    @Test
+    public void testGetImportedFiles() throws Exception {
+        System.out.println("getImportedFiles");
+        File dir = Files.createTempDirectory("configr").toFile();
+        for (int i = 0; i < 200; i++) {
+            write(new File(dir, String.format("%03d-fragment.cfgr", i)), "[Fragment " + i + "]\nindex=" + i + "\nport=" + (8000 + i) + "\n");
+        }
+        write(new File(dir, "nested/999-host.cfgr"), "[Host]\nport=443\n");
+        write(new File(dir, "readme.txt"), "not=imported\n");
+        Files.createSymbolicLink(new File(dir, "500-missing.cfgr").toPath(), new File(dir, "gone").toPath());
+
+        ConfigrDirectoryImportContext context = new ConfigrDirectoryImportContext(dir, "*.cfgr", 8);
+        ConfigrFile[] result = context.getImportedFiles();
+        assertEquals(201, result.length);
+        for (int i = 0; i < 200; i++) {
+            assertEquals("Fragment " + i, result[i].getName());
+            assertEquals(i, result[i].getInt("index"));
+        }
+        assertEquals("Host", result[200].getName());
+        assertEquals(201, context.getFiles().length);
+        assertFalse(context.isComplete());
+        assertEquals(1, context.getErrors().size());
+        assertTrue(context.getErrors().containsKey(new File(dir, "500-missing.cfgr")));
+
+        try (ConfigrLayeredConfig layered = context.getLayeredConfig()) {
+            assertEquals(443, layered.getInt("port"));
+            assertEquals(199, layered.getInt("index"));
+        }
+
+        new File(dir, "nested/999-host.cfgr").delete();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            context = new ConfigrDirectoryImportContext(dir, "0*.cfgr", executor);
+            assertEquals(100, context.getImportedFiles().length);
+            assertEquals("Fragment 99", context.getImportedFiles()[99].getName());
+            assertTrue(context.isComplete());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test of getLayeredConfig method, of class ConfigrDirectoryImportContext.
+     */
+    @Test
+    public void testGetLayeredConfig() throws Exception {
+        System.out.println("getLayeredConfig");
+        File dir = Files.createTempDirectory("configr").toFile();
+        write(new File(dir, "10-base.cfgr"), "port=1\nhost=preamble\n[Main]\nport=80\n[Extra]\nport=81\nhost=extra\nssl=false\n");
+        write(new File(dir, "20-override.cfgr"), "[Override]\nssl=true\n");
+
+        ConfigrDirectoryImportContext context = new ConfigrDirectoryImportContext(dir);
+        assertEquals(4, context.getImportedFiles().length);
+        assertEquals(3, new ConfigrImportContext(new File(dir, "10-base.cfgr")).getImportedFiles().length);
+        try (ConfigrLayeredConfig layered = context.getLayeredConfig()) {
+            assertEquals(80, layered.getInt("port"));
+            assertEquals("extra", layered.getString("host"));
+            assertTrue(layered.getBoolean("ssl"));
+        }
+    }
+}
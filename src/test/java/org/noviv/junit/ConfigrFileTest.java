@@ -0,0 +1,405 @@
+package org.noviv.junit;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.Configr;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.ConfigrLayeredConfig;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.event.ConfigrChangeEvent;
+import org.noviv.configr.event.ConfigrChangeListener;
+import org.noviv.configr.io.ConfigrJournal;
+import org.noviv.configr.io.ConfigrReadContext;
+import org.noviv.configr.io.ConfigrWatcher;
+import org.noviv.configr.metrics.ConfigrCountingSink;
+import org.noviv.configr.metrics.ConfigrMetrics;
+
+public class ConfigrFileTest {
+
+    static File createFile() throws Exception {
+        File f = File.createTempFile("configr", ".cfgr");
+        f.deleteOnExit();
+        return f;
+    }
+
+    private static int settingCount(File f) {
+        try {
+            return new ConfigrReadContext(f).getConfigrFile().getSettings().size();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Test of write method, of class ConfigrFile.
+     */
+    @Test
+    public void testWrite() throws Exception {
+        System.out.println("write");
+        File f = createFile();
+        ConfigrFile file = new ConfigrFile("Test", f.getPath());
+        file.set("working", true);
+        file.set("count", 3);
+        file.set("ratio", 0.5);
+        file.set("name", "value");
+        file.writeIfNecessary();
+        ConfigrFile read = new ConfigrReadContext(f).getConfigrFile();
+        assertEquals("Test", read.getName());
+        assertTrue(read.getBoolean("working"));
+        assertEquals(3, read.getInt("count"));
+        assertEquals(0.5, read.getDouble("ratio"), 0);
+        assertEquals("value", read.getString("name"));
+    }
+
+    /**
+     * Test of setWriteBehind method, of class ConfigrFile.
+     */
+    @Test
+    public void testSetWriteBehind() throws Exception {
+        System.out.println("setWriteBehind");
+        File f = createFile();
+        ConfigrFile file = new ConfigrFile("Test", f.getPath());
+        file.setWriteBehind(60000, 100000);
+        for (int i = 0; i < 500; i++) {
+            file.set("key" + i, i);
+        }
+        assertEquals(0, f.length());
+        file.flush();
+        ConfigrFile read = new ConfigrReadContext(f).getConfigrFile();
+        assertEquals(500, read.getSettings().size());
+        assertEquals(499, read.getInt("key499"));
+
+        file.setWriteBehind(60000, 10);
+        for (int i = 0; i < 10; i++) {
+            file.set("batch" + i, i);
+        }
+        long deadline = System.currentTimeMillis() + 10000;
+        while (settingCount(f) < 510 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(510, new ConfigrReadContext(f).getConfigrFile().getSettings().size());
+
+        file.set("last", true);
+        file.close();
+        assertTrue(new ConfigrReadContext(f).getConfigrFile().getBoolean("last"));
+    }
+
+    /**
+     * Test of setJournaled method, of class ConfigrFile.
+     */
+    @Test
+    public void testSetJournaled() throws Exception {
+        System.out.println("setJournaled");
+        File f = createFile();
+        File log = ConfigrJournal.getJournalFile(f);
+        log.deleteOnExit();
+        ConfigrFile file = new ConfigrFile("Test", f.getPath());
+        file.set("base", "value");
+        file.setJournaled(1 << 20);
+        long length = f.length();
+        for (int i = 0; i < 100; i++) {
+            file.set("key" + i, i);
+        }
+        file.set("base", "changed");
+        assertEquals(length, f.length());
+        assertTrue(log.length() > 0);
+        ConfigrFile read = new ConfigrReadContext(f).getConfigrFile();
+        assertEquals(101, read.getSettings().size());
+        assertEquals(99, read.getInt("key99"));
+        assertEquals("changed", read.getString("base"));
+
+        file.setJournaled(64);
+        for (int i = 0; i < 100; i++) {
+            file.set("key" + i, i * 2);
+        }
+        long deadline = System.currentTimeMillis() + 10000;
+        while (log.length() >= 64 * 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(log.length() < 64 * 4);
+        read = new ConfigrReadContext(f).getConfigrFile();
+        assertEquals(198, read.getInt("key99"));
+
+        file.close();
+        file.write(true);
+        assertFalse(log.exists());
+        assertEquals(198, new ConfigrReadContext(f).getConfigrFile().getInt("key99"));
+    }
+
+    /**
+     * Test of setConcurrent method, of class ConfigrFile.
+     */
+    @Test
+    public void testSetConcurrent() throws Exception {
+        System.out.println("setConcurrent");
+        final ConfigrFile file = new ConfigrFile("Test");
+        file.setConcurrent(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 500; i++) {
+                            if (id % 2 == 0) {
+                                file.set("key" + id + "." + i, i);
+                            } else {
+                                for (String s : file.getSettings()) {
+                                    assertNotNull(file.getString(s));
+                                }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertNull(failure.get());
+        assertEquals(2000, file.getSettings().size());
+        assertEquals(499, file.getInt("key6.499"));
+    }
+
+    /**
+     * Test of addChangeListener method, of class ConfigrFile.
+     */
+    @Test
+    public void testAddChangeListener() throws Exception {
+        System.out.println("addChangeListener");
+        final List<String> keyEvents = new ArrayList<>();
+        final List<String> prefixEvents = new ArrayList<>();
+        ConfigrChangeListener keyListener = new ConfigrChangeListener() {
+
+            @Override
+            public void changed(ConfigrChangeEvent event) {
+                keyEvents.add(event.getKey() + "=" + event.getNewValue());
+            }
+        };
+        ConfigrFile file = new ConfigrFile("Test");
+        file.addChangeListener("db.port", keyListener);
+        file.addPrefixChangeListener("db.", new ConfigrChangeListener() {
+
+            @Override
+            public void changed(ConfigrChangeEvent event) {
+                prefixEvents.add(event.getKey());
+            }
+        });
+        file.set("db.port", 5432);
+        file.set("db.host", "localhost");
+        file.set("cache.size", 10);
+        assertEquals("[db.port=5432]", keyEvents.toString());
+        assertEquals("[db.port, db.host]", prefixEvents.toString());
+
+        ConfigrSettingsMap next = new ConfigrSettingsMap();
+        next.putInt("db.port", 5432);
+        next.putString("db.user", "admin");
+        next.putInt("cache.size", 20);
+        file.setAll(next);
+        assertEquals(1, keyEvents.size());
+        assertEquals("[db.port, db.host, db.user, db.host]", prefixEvents.toString());
+
+        file.removeChangeListener(keyListener);
+        file.set("db.port", 1);
+        assertEquals(1, keyEvents.size());
+
+        File f = createFile();
+        try (FileWriter writer = new FileWriter(f)) {
+            writer.write(Configr.getCheckHead() + "\n[Test]\ndb.port=1\n");
+        }
+        ConfigrReadContext context = new ConfigrReadContext(f);
+        final List<ConfigrChangeEvent> events = new ArrayList<>();
+        context.getConfigrFile().addPrefixChangeListener("", new ConfigrChangeListener() {
+
+            @Override
+            public void changed(ConfigrChangeEvent event) {
+                events.add(event);
+            }
+        });
+        try (FileWriter writer = new FileWriter(f)) {
+            writer.write(Configr.getCheckHead() + "\n[Test]\ndb.port=2\n");
+        }
+        assertSame(context.getConfigrFile(), context.refresh());
+        assertEquals(1, events.size());
+        assertEquals(1, events.get(0).getOldValue());
+        assertEquals(2, events.get(0).getNewValue());
+        assertEquals(ConfigrDataType.INTEGER, events.get(0).getNewType());
+    }
+
+    /**
+     * Test of write method, of class ConfigrFile, with settings without a value.
+     */
+    @Test
+    public void testWriteNull() throws Exception {
+        System.out.println("writeNull");
+        File f = createFile();
+        ConfigrJournal.getJournalFile(f).deleteOnExit();
+        ConfigrFile file = new ConfigrFile("Test", f.getPath());
+        file.set("flag", ConfigrDataType.NULL);
+        file.set("name", "null");
+        file.write(true);
+        ConfigrFile read = new ConfigrReadContext(f).getConfigrFile();
+        assertEquals(ConfigrDataType.NULL, read.getSettingType("flag"));
+        assertNull(read.getString("flag"));
+        assertEquals("null", read.getString("name"));
+
+        file.setJournaled(1 << 20);
+        file.set("journaled", ConfigrDataType.NULL);
+        read = new ConfigrReadContext(f).getConfigrFile();
+        assertEquals(ConfigrDataType.NULL, read.getSettingType("journaled"));
+        file.close();
+    }
+
+    /**
+     * Test of write method, of class ConfigrFile, with doubles written in scientific notation.
+     */
+    @Test
+    public void testWriteDouble() throws Exception {
+        System.out.println("writeDouble");
+        File f = createFile();
+        ConfigrFile file = new ConfigrFile("Test", f.getPath());
+        double[] values = {1.0E-7, 1.2345678901234567E19, -4.9E-324, Double.MAX_VALUE, 0.1, -2.5};
+        for (int i = 0; i < values.length; i++) {
+            file.set("d" + i, values[i]);
+        }
+        file.write(true);
+        ConfigrFile read = new ConfigrReadContext(f).getConfigrFile();
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(ConfigrDataType.DOUBLE, read.getSettingType("d" + i));
+            assertEquals(values[i], read.getDouble("d" + i), 0);
+        }
+    }
+
+    /**
+     * Test of refresh method, of class ConfigrReadContext, on a file that is written automatically.
+     */
+    @Test
+    public void testRefreshAutoWrite() throws Exception {
+        System.out.println("refreshAutoWrite");
+        for (int mode = 0; mode < 3; mode++) {
+            File f = createFile();
+            ConfigrJournal.getJournalFile(f).deleteOnExit();
+            try (FileWriter writer = new FileWriter(f)) {
+                writer.write(Configr.getCheckHead() + "\n[Test]\nport=1\n");
+            }
+            ConfigrReadContext context = new ConfigrReadContext(f);
+            ConfigrFile file = context.getConfigrFile();
+            if (mode == 0) {
+                file.setAutoWrite(true);
+            } else if (mode == 1) {
+                file.setWriteBehind(10, 1);
+            } else {
+                file.setJournaled(1 << 20);
+            }
+            String content = Configr.getCheckHead() + "\n[Test]\nport=2\n";
+            try (FileWriter writer = new FileWriter(f)) {
+                writer.write(content);
+            }
+            assertTrue(f.setLastModified(1000000));
+            assertSame(file, context.refresh());
+            assertEquals(2, file.getInt("port"));
+            file.flush();
+            Thread.sleep(50);
+            assertEquals(1000000, f.lastModified());
+            assertEquals(content.length(), f.length());
+            file.close();
+        }
+    }
+
+    /**
+     * Test of watch method, of class ConfigrReadContext, on a file that is written automatically.
+     */
+    @Test
+    public void testWatchAutoWrite() throws Exception {
+        System.out.println("watchAutoWrite");
+        File f = createFile();
+        try (FileWriter writer = new FileWriter(f)) {
+            writer.write(Configr.getCheckHead() + "\n[Test]\nport=1\n");
+        }
+        ConfigrReadContext context = new ConfigrReadContext(f);
+        ConfigrFile file = context.getConfigrFile();
+        file.setAutoWrite(true);
+        ConfigrCountingSink sink = new ConfigrCountingSink();
+        ConfigrMetrics.setSink(sink);
+        ConfigrWatcher watcher = new ConfigrWatcher();
+        try {
+            context.watch(watcher, 20);
+            try (FileWriter writer = new FileWriter(f)) {
+                writer.write(Configr.getCheckHead() + "\n[Test]\nport=2\n");
+            }
+            long deadline = System.currentTimeMillis() + 10000;
+            while (file.getInt("port") != 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, file.getInt("port"));
+            Thread.sleep(300);
+            assertEquals(0, sink.getWrites());
+
+            long refreshes = sink.getRefreshes();
+            file.set("port", 3);
+            assertEquals(1, sink.getWrites());
+            Thread.sleep(300);
+            assertEquals(refreshes, sink.getRefreshes());
+            assertEquals(1, sink.getWrites());
+            assertEquals(3, file.getInt("port"));
+        } finally {
+            ConfigrMetrics.setSink(null);
+            context.unwatch();
+            watcher.close();
+            file.close();
+        }
+    }
+
+    /**
+     * Test of write method, of class ConfigrFile, with numbers whose text differs from the text of their value.
+     */
+    @Test
+    public void testWriteNumberText() throws Exception {
+        System.out.println("writeNumberText");
+        String[] keys = {"zip", "negative", "zero", "version", "pi", "exponent", "plain", "ratio"};
+        String[] texts = {"01234", "-007", "-0", "1.10", "3.14159265358979323846264338", "1.5e3", "42", "0.5"};
+        File f = createFile();
+        ConfigrJournal.getJournalFile(f).deleteOnExit();
+        StringBuilder content = new StringBuilder(Configr.getCheckHead()).append("\n[Test]\n");
+        for (int i = 0; i < keys.length; i++) {
+            content.append(keys[i]).append('=').append(texts[i]).append('\n');
+        }
+        try (FileWriter writer = new FileWriter(f)) {
+            writer.write(content.toString());
+        }
+        ConfigrReadContext context = new ConfigrReadContext(f);
+        ConfigrFile file = context.getConfigrFile();
+        assertEquals(1234, file.getInt("zip"));
+        assertEquals(-7, file.getInt("negative"));
+        assertEquals(1.1, file.getDouble("version"), 0);
+        assertEquals(ConfigrDataType.DOUBLE, file.getSettingType("pi"));
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(texts[i], file.getString(keys[i]));
+            assertEquals(texts[i], Configr.getSetting(f.getPath(), keys[i]));
+        }
+        assertEquals("1.10", new ConfigrLayeredConfig(file).getString("version"));
+
+        file.setAutoWrite(true);
+        file.set("added", 1);
+        context.refresh();
+        file.setJournaled(1 << 20);
+        file.set("version", 2.5);
+        ConfigrFile read = new ConfigrReadContext(f).getConfigrFile();
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i == 3 ? "2.5" : texts[i], read.getString(keys[i]));
+        }
+        file.close();
+    }
+}
@@ -0,0 +1,209 @@
+package org.noviv.junit;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.data.ConfigrInternPool;
+import org.noviv.configr.io.ConfigrImportContext;
+import org.noviv.configr.io.ConfigrImportMode;
+import org.noviv.configr.io.ConfigrWatcher;
+
+public class ConfigrImportContextTest {
+
+    private static final String CONFIG = "worked\n\n[Config 1]\nstring=10\nflag=true\n[Config 2]\nname=value\nratio=0.5\n";
+
+    static File createFile(String content) throws Exception {
+        File f = File.createTempFile("configr", ".cfgr");
+        f.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return f;
+    }
+
+    static void assertSameFiles(ConfigrFile[] expected, ConfigrFile[] result) {
+        assertEquals(expected.length, result.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].getName(), result[i].getName());
+            assertEquals(expected[i].getSettings(), result[i].getSettings());
+            for (String s : expected[i].getSettings()) {
+                assertEquals(expected[i].getSetting(s), result[i].getSetting(s));
+                assertEquals(expected[i].getSettingType(s), result[i].getSettingType(s));
+            }
+        }
+    }
+
+    /**
+     * Test of getImportedFiles method, of class ConfigrImportContext.
+     */
+    @Test
+    public void testGetImportedFiles() throws Exception {
+        System.out.println("getImportedFiles");
+        ConfigrImportContext context = new ConfigrImportContext(createFile(CONFIG));
+        ConfigrFile[] result = context.getImportedFiles();
+        assertEquals(3, result.length);
+        assertEquals("Config 1", result[0].getName());
+        assertEquals("Config 2", result[1].getName());
+        assertEquals("Null Config", result[2].getName());
+        assertTrue(context.isNullBufferActive());
+        assertTrue(result[2].getSettings().contains("worked"));
+    }
+
+    /**
+     * Test of the mapped import mode, of class ConfigrImportContext.
+     */
+    @Test
+    public void testMapped() throws Exception {
+        System.out.println("mapped");
+        File f = createFile(CONFIG);
+        ConfigrImportContext streamed = new ConfigrImportContext(f);
+        ConfigrImportContext mapped = new ConfigrImportContext(f, "=", ConfigrImportMode.MAPPED);
+        assertSameFiles(streamed.getImportedFiles(), mapped.getImportedFiles());
+    }
+
+    /**
+     * Test of the parallel import mode, of class ConfigrImportContext.
+     */
+    @Test
+    public void testParallel() throws Exception {
+        System.out.println("parallel");
+        StringBuilder content = new StringBuilder("preamble=1\n");
+        for (int i = 0; i < 500; i++) {
+            content.append("[Section ").append(i).append("]\n");
+            for (int j = 0; j < i % 7; j++) {
+                content.append("key").append(j).append('=').append(i * j).append('\n');
+            }
+        }
+        File f = createFile(content.toString());
+        ConfigrImportContext streamed = new ConfigrImportContext(f);
+        ConfigrImportContext parallel = new ConfigrImportContext(f, "=", ConfigrImportMode.PARALLEL);
+        assertEquals(501, parallel.getImportedFiles().length);
+        assertSameFiles(streamed.getImportedFiles(), parallel.getImportedFiles());
+        assertSameFiles(new ConfigrImportContext(createFile(CONFIG)).getImportedFiles(),
+                new ConfigrImportContext(createFile(CONFIG), "=", ConfigrImportMode.PARALLEL).getImportedFiles());
+    }
+
+    /**
+     * Test of watch method, of class ConfigrImportContext.
+     */
+    @Test
+    public void testWatch() throws Exception {
+        System.out.println("watch");
+        File f = createFile("[A]\nport=80\n");
+        ConfigrImportContext context = new ConfigrImportContext(f);
+        ConfigrWatcher watcher = new ConfigrWatcher();
+        try {
+            context.watch(watcher, 20);
+            try (FileOutputStream out = new FileOutputStream(f)) {
+                out.write("[A]\nport=8080\n".getBytes(StandardCharsets.UTF_8));
+            }
+            long deadline = System.currentTimeMillis() + 10000;
+            while (context.getImportedFiles()[0].getInt("port") != 8080 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(8080, context.getImportedFiles()[0].getInt("port"));
+        } finally {
+            context.unwatch();
+            watcher.close();
+        }
+    }
+
+    /**
+     * Test of refresh method, of class ConfigrImportContext.
+     */
+    @Test
+    public void testRefresh() throws Exception {
+        System.out.println("refresh");
+        for (ConfigrImportMode mode : ConfigrImportMode.values()) {
+            File f = createFile("[A]\nname=a\n[B]\nname=b\n[C]\nname=c\n");
+            ConfigrImportContext context = new ConfigrImportContext(f, "=", mode);
+            ConfigrFile[] before = context.refresh();
+            String a = before[0].getString("name");
+            try (FileOutputStream out = new FileOutputStream(f)) {
+                out.write("[A]\nname=a\n[B]\nname=changed\n[D]\nname=d\nloose\n".getBytes(StandardCharsets.UTF_8));
+            }
+            ConfigrFile[] after = context.refresh();
+            assertEquals(3, after.length);
+            assertSame(before[0], after[0]);
+            assertSame(a, after[0].getString("name"));
+            assertSame(before[1], after[1]);
+            assertEquals("changed", after[1].getString("name"));
+            assertEquals("D", after[2].getName());
+            assertTrue(after[2].getSettings().contains("loose"));
+            assertFalse(context.isNullBufferActive());
+            assertSameFiles(new ConfigrImportContext(f).getImportedFiles(), after);
+        }
+    }
+
+    /**
+     * Test of getSection method, of class ConfigrImportContext.
+     */
+    @Test
+    public void testGetSection() throws Exception {
+        System.out.println("getSection");
+        File f = createFile(CONFIG);
+        ConfigrImportContext lazy = new ConfigrImportContext(f, "=", ConfigrImportMode.LAZY);
+        ConfigrFile second = lazy.getSection("Config 2");
+        assertEquals("value", second.getString("name"));
+        assertSame(second, lazy.getSection("Config 2"));
+        assertNull(lazy.getSection("Config 3"));
+        assertTrue(lazy.isNullBufferActive());
+        assertTrue(lazy.getSection("Null Config").getSettings().contains("worked"));
+
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write((CONFIG.replace("ratio=0.5", "ratio=0.75") + "[Config 3]\nnew=1\n").getBytes(StandardCharsets.UTF_8));
+        }
+        lazy.refresh();
+        assertSame(second, lazy.getSection("Config 2"));
+        assertEquals(0.75, second.getDouble("ratio"), 0);
+        assertEquals(1, lazy.getSection("Config 3").getInt("new"));
+        assertSameFiles(new ConfigrImportContext(f).getImportedFiles(), lazy.getImportedFiles());
+        assertEquals("10", new ConfigrImportContext(f).getSection("Config 1").getString("string"));
+    }
+
+    /**
+     * Test of getSection method, of class ConfigrImportContext, after the file was rewritten in place.
+     */
+    @Test
+    public void testGetSectionRewritten() throws Exception {
+        System.out.println("getSectionRewritten");
+        File f = createFile("[A]\nport=80\n[B]\nport=81\n[C]\nport=82\n");
+        ConfigrImportContext lazy = new ConfigrImportContext(f, "=", ConfigrImportMode.LAZY);
+        try (RandomAccessFile out = new RandomAccessFile(f, "rw")) {
+            out.seek(0);
+            out.write("[A]\nport=90\n[B]\nport=91\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(91, lazy.getSection("B").getInt("port"));
+        try (RandomAccessFile out = new RandomAccessFile(f, "rw")) {
+            out.setLength(0);
+            out.write("[C]\nport=7\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(7, lazy.getSection("C").getInt("port"));
+        assertNull(lazy.getSection("A"));
+        assertEquals(1, lazy.getImportedFiles().length);
+    }
+
+    /**
+     * Test of importing with an intern pool, of class ConfigrImportContext.
+     */
+    @Test
+    public void testInternPool() throws Exception {
+        System.out.println("internPool");
+        ConfigrInternPool pool = new ConfigrInternPool(8);
+        String content = "[A]\nhost=localhost\nport=80\ndescription=a long description\n[B]\nhost=localhost\nport=81\n";
+        for (ConfigrImportMode mode : ConfigrImportMode.values()) {
+            ConfigrFile[] first = new ConfigrImportContext(createFile(content), "=", mode, pool).getImportedFiles();
+            ConfigrFile[] second = new ConfigrImportContext(createFile(content), "=", mode, pool).getImportedFiles();
+            assertSame(first[0].getSettings().iterator().next(), first[1].getSettings().iterator().next());
+            assertSame(first[0].getSettings().iterator().next(), second[1].getSettings().iterator().next());
+            assertSame(first[0].getName(), second[0].getName());
+            assertNotSame(first[0].getString("description"), second[0].getString("description"));
+        }
+        ConfigrFile[] plain = new ConfigrImportContext(createFile(content)).getImportedFiles();
+        assertNotSame(plain[0].getSettings().iterator().next(), plain[1].getSettings().iterator().next());
+    }
+}
@@ -0,0 +1,94 @@
+package org.noviv.junit;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.data.ConfigrConcurrentSettingsMap;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrKey;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+public class ConfigrKeyTest {
+
+    /**
+     * Test of get method, of class ConfigrKey.
+     */
+    @Test
+    public void testGet() {
+        System.out.println("get");
+        ConfigrFile file = new ConfigrFile("Test");
+        file.set("port", 8080);
+        file.set("ratio", 0.5);
+        file.set("debug", true);
+        file.set("host", "localhost");
+
+        ConfigrKey<Integer> port = ConfigrKey.ofInt("port");
+        ConfigrKey<Double> ratio = ConfigrKey.ofDouble("ratio");
+        ConfigrKey<Boolean> debug = ConfigrKey.ofBoolean("debug");
+        ConfigrKey<String> host = ConfigrKey.ofString("host");
+        assertEquals(8080, port.getInt(file));
+        assertEquals(8080, port.getDouble(file), 0);
+        assertEquals(0.5, ratio.getDouble(file), 0);
+        assertTrue(debug.getBoolean(file));
+        assertEquals("localhost", host.get(file));
+        assertEquals(Integer.valueOf(8080), port.get(file));
+        try {
+            ratio.getLong(file);
+            fail("Setting is a double");
+        } catch (ConfigrValidationException e) {
+        }
+        assertEquals("true", debug.getString(file));
+        try {
+            ConfigrKey.ofString("debug").getString(file);
+            fail("Setting is a boolean");
+        } catch (ConfigrValidationException e) {
+        }
+
+        file.set("port", 9090);
+        assertEquals(9090, port.getInt(file));
+
+        ConfigrSettingsMap other = new ConfigrSettingsMap();
+        other.putString("padding", "x");
+        other.putInt("port", 1);
+        file.setAll(other);
+        assertEquals(1, port.getInt(file));
+        assertFalse(host.isPresent(file));
+
+        ConfigrKey<Long> missing = ConfigrKey.ofLong("missing");
+        assertFalse(missing.isPresent(file));
+        file.set("missing", 5L);
+        assertTrue(missing.isPresent(file));
+        assertEquals(5, missing.getLong(file));
+
+        other = file.getSettingsMap();
+        other.clear();
+        other.putInt("other", 2);
+        other.putInt("port", 3);
+        assertEquals(3, port.getInt(other));
+        try {
+            missing.getLong(other);
+            fail("Setting was cleared");
+        } catch (ConfigrValidationException e) {
+        }
+    }
+
+    /**
+     * Test of get method, of class ConfigrKey, with a ConfigrConcurrentSettingsMap.
+     */
+    @Test
+    public void testGetConcurrent() {
+        System.out.println("get concurrent");
+        ConfigrConcurrentSettingsMap map = new ConfigrConcurrentSettingsMap(4);
+        map.putLong("count", 7);
+        map.putDouble("ratio", 0.25);
+        assertEquals(7, ConfigrKey.ofLong("count").getLong(map));
+        assertEquals(0.25, ConfigrKey.ofDouble("ratio").getDouble(map), 0);
+        assertEquals(0.25, ConfigrKey.of("ratio", ConfigrDataType.DOUBLE).get(map));
+        try {
+            ConfigrKey.of("count", ConfigrDataType.STRING).get(map);
+            fail("Setting is an integer");
+        } catch (ConfigrValidationException e) {
+        }
+    }
+}
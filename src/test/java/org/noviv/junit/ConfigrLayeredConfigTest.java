@@ -0,0 +1,105 @@
+package org.noviv.junit;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.ConfigrLayeredConfig;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+public class ConfigrLayeredConfigTest {
+
+    /**
+     * Test of getSetting method, of class ConfigrLayeredConfig.
+     */
+    @Test
+    public void testGetSetting() {
+        System.out.println("getSetting");
+        ConfigrFile defaults = new ConfigrFile("Defaults");
+        defaults.set("port", 80);
+        defaults.set("host", "localhost");
+        defaults.set("ratio", 0.5);
+        ConfigrFile environment = new ConfigrFile("Environment");
+        environment.set("port", 8080);
+        ConfigrFile host = new ConfigrFile("Host");
+        host.set("debug", true);
+
+        ConfigrLayeredConfig config = new ConfigrLayeredConfig(defaults, environment, host);
+        assertEquals(4, config.size());
+        assertEquals(8080, config.getInt("port"));
+        assertSame(environment, config.getLayer("port"));
+        assertEquals("localhost", config.getString("host"));
+        assertEquals(0.5, config.getDouble("ratio"), 0);
+        assertTrue(config.getBoolean("debug"));
+        assertEquals(ConfigrDataType.INTEGER, config.getSettingType("port"));
+        assertNull(config.getSetting("missing"));
+        assertEquals(7, config.getInt("missing", 7));
+        try {
+            config.getBoolean("host");
+            fail("Setting is a string");
+        } catch (ConfigrValidationException e) {
+        }
+
+        host.set("port", 443);
+        assertEquals(443, config.getInt("port"));
+        assertSame(host, config.getLayer("port"));
+        defaults.set("port", 81);
+        assertEquals(443, config.getInt("port"));
+
+        ConfigrSettingsMap replaced = new ConfigrSettingsMap();
+        replaced.putBoolean("debug", false);
+        host.setAll(replaced);
+        assertEquals(8080, config.getInt("port"));
+        assertFalse(config.getBoolean("debug"));
+
+        environment.setAll(new ConfigrSettingsMap());
+        assertEquals(81, config.getInt("port"));
+        assertSame(defaults, config.getLayer("port"));
+
+        config.close();
+        defaults.set("port", 82);
+        assertEquals(81, config.getInt("port"));
+    }
+
+    /**
+     * Test of refresh method, of class ConfigrLayeredConfig.
+     */
+    @Test
+    public void testRefresh() {
+        System.out.println("refresh");
+        ConfigrFile defaults = new ConfigrFile("Defaults");
+        defaults.set("port", 80);
+        defaults.set("verbose", ConfigrDataType.NULL);
+        ConfigrFile host = new ConfigrFile("Host");
+        host.set("port", ConfigrDataType.NULL);
+
+        ConfigrLayeredConfig config = new ConfigrLayeredConfig(defaults, host);
+        assertEquals(80, config.getInt("port"));
+        assertSame(defaults, config.getLayer("port"));
+        assertEquals(ConfigrDataType.NULL, config.getSettingType("verbose"));
+        assertNull(config.getString("verbose"));
+
+        host.set("port", 443);
+        assertEquals(443, config.getInt("port"));
+        host.set("added", true);
+        assertTrue(config.getBoolean("added"));
+        assertSame(host, config.getLayer("added"));
+        host.set("added", false);
+        assertFalse(config.getBoolean("added"));
+
+        defaults.set("b", "old");
+        host.set("b", "new");
+        assertEquals("new", config.getString("b"));
+        ConfigrSettingsMap replaced = new ConfigrSettingsMap();
+        replaced.putString("c", "loaded");
+        host.setAll(replaced);
+        assertEquals("loaded", config.getString("c"));
+        assertEquals("old", config.getString("b"));
+        assertNull(config.getSetting("added"));
+        assertEquals(4, config.size());
+        config.refresh();
+        assertEquals(4, config.size());
+        config.close();
+    }
+}
@@ -0,0 +1,141 @@
+package org.noviv.junit;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.io.ConfigrFileCache;
+import org.noviv.configr.io.ConfigrImportContext;
+import org.noviv.configr.io.ConfigrReadContext;
+import org.noviv.configr.metrics.ConfigrCountingSink;
+import org.noviv.configr.metrics.ConfigrJfrSink;
+import org.noviv.configr.metrics.ConfigrMetrics;
+
+public class ConfigrMetricsTest {
+
+    @After
+    public void tearDown() {
+        ConfigrMetrics.setSink(null);
+    }
+
+    /**
+     * Test of setSink method, of class ConfigrMetrics.
+     */
+    @Test
+    public void testSetSink() throws Exception {
+        System.out.println("setSink");
+        ConfigrCountingSink sink = new ConfigrCountingSink();
+        ConfigrMetrics.setSink(sink, true);
+
+        File f = File.createTempFile("configr", ".cfgr");
+        f.deleteOnExit();
+        ConfigrFile file = new ConfigrFile("Test", f.getPath());
+        file.set("a", 1);
+        file.set("b", "text");
+        file.write(true);
+        assertEquals(1, sink.getWrites());
+        assertEquals(f.length(), sink.getWriteBytes());
+
+        ConfigrReadContext read = new ConfigrReadContext(f);
+        assertEquals(1, sink.getParses());
+        assertEquals(f.length(), sink.getParseBytes());
+        assertEquals(4, sink.getParseLines());
+        read.refresh();
+        assertEquals(2, sink.getParses());
+        assertEquals(1, sink.getRefreshes());
+        assertEquals(0, sink.getFailedRefreshes());
+
+        ConfigrFile result = read.getConfigrFile();
+        result.getInt("a");
+        result.getInt("a");
+        result.getString("b", null);
+        assertEquals(2, sink.getLookups("a"));
+        assertEquals(1, sink.getLookups("b"));
+
+        File imported = ConfigrImportContextTest.createFile("x=1\n[First]\ny=2\n[Second]\nz=3\n");
+        new ConfigrImportContext(imported).refresh();
+        assertEquals(4, sink.getParses());
+        assertEquals(6, sink.getParseSections());
+        assertEquals(2, sink.getRefreshes());
+
+        ConfigrFileCache cache = new ConfigrFileCache(4);
+        cache.getImportedFiles(imported.getPath());
+        cache.getImportedFiles(imported.getPath());
+        assertEquals(1, sink.getCacheMisses());
+        assertEquals(1, sink.getCacheHits());
+
+        ConfigrMetrics.setSink(sink);
+        result.getInt("a");
+        assertEquals(2, sink.getLookups("a"));
+        ConfigrMetrics.setSink(null);
+        file.write(true);
+        assertEquals(1, sink.getWrites());
+    }
+
+    /**
+     * Test of class ConfigrJfrSink.
+     */
+    @Test
+    public void testJfrSink() throws Exception {
+        System.out.println("jfrSink");
+        ConfigrMetrics.setSink(new ConfigrJfrSink());
+        Path dump = Files.createTempFile("configr", ".jfr");
+        dump.toFile().deleteOnExit();
+        try (Recording recording = new Recording()) {
+            recording.enable("org.noviv.configr.Parse");
+            recording.enable("org.noviv.configr.Write");
+            recording.start();
+            File f = File.createTempFile("configr", ".cfgr");
+            f.deleteOnExit();
+            ConfigrFile file = new ConfigrFile("Test", f.getPath());
+            file.set("a", 1);
+            file.write(true);
+            new ConfigrReadContext(f);
+            recording.stop();
+            recording.dump(dump);
+        }
+        boolean parsed = false;
+        boolean written = false;
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            String name = event.getEventType().getName();
+            if (name.equals("org.noviv.configr.Parse")) {
+                parsed = true;
+                assertEquals(3, event.getInt("lines"));
+            } else if (name.equals("org.noviv.configr.Write")) {
+                written = true;
+                assertTrue(event.getLong("bytes") > 0);
+            }
+        }
+        assertTrue(parsed);
+        assertTrue(written);
+    }
+
+    /**
+     * Test of lookup method, of class ConfigrCountingSink.
+     */
+    @Test
+    public void testLookup() {
+        System.out.println("lookup");
+        ConfigrCountingSink sink = new ConfigrCountingSink(3);
+        sink.lookup("First", "port");
+        sink.lookup("First", "port");
+        sink.lookup("Second", "port");
+        sink.lookup("Second", "host");
+        sink.lookup("Third", "port");
+        sink.lookup("Second", "host");
+        assertEquals(2, sink.getLookups("First", "port"));
+        assertEquals(1, sink.getLookups("Second", "port"));
+        assertEquals(3, sink.getLookups("port"));
+        assertEquals(2, sink.getLookups("Second", "host"));
+        assertEquals(0, sink.getLookups("Third", "port"));
+        assertEquals(1, sink.getUntrackedLookups());
+        assertEquals(Long.valueOf(2), sink.getLookups().get("First").get("port"));
+        assertFalse(sink.getLookups().containsKey("Third"));
+    }
+}
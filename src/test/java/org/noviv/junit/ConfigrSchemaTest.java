@@ -0,0 +1,149 @@
+package org.noviv.junit;
+
+import java.io.File;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.exceptions.ConfigrBufferException;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+import org.noviv.configr.io.ConfigrImportContext;
+import org.noviv.configr.io.ConfigrImportMode;
+import org.noviv.configr.io.ConfigrJournal;
+import org.noviv.configr.io.ConfigrReadContext;
+import org.noviv.configr.io.ConfigrSchema;
+
+public class ConfigrSchemaTest {
+
+    private static ConfigrSchema schema() {
+        return new ConfigrSchema()
+                .define("port", ConfigrDataType.INTEGER)
+                .define("ratio", ConfigrDataType.DOUBLE)
+                .define("name", ConfigrDataType.STRING)
+                .define("debug", ConfigrDataType.BOOLEAN)
+                .define("retries", ConfigrDataType.INTEGER);
+    }
+
+    /**
+     * Test of the schema in class ConfigrReadContext.
+     */
+    @Test
+    public void testRead() throws Exception {
+        System.out.println("read");
+        File f = File.createTempFile("configr", ".cfgr");
+        f.deleteOnExit();
+        ConfigrFile file = new ConfigrFile("Test", f.getPath());
+        file.set("port", "8080x");
+        file.set("ratio", 2);
+        file.set("name", 42);
+        file.set("debug", true);
+        file.set("extra", "kept");
+        file.write(true);
+
+        ConfigrReadContext read = new ConfigrReadContext(f, null, schema());
+        ConfigrFile result = read.getConfigrFile();
+        assertEquals(ConfigrDataType.INTEGER, result.getSettingType("port"));
+        assertEquals(0, result.getInt("port"));
+        assertEquals(ConfigrDataType.DOUBLE, result.getSettingType("ratio"));
+        assertEquals(2.0, result.getDouble("ratio"), 0);
+        assertEquals(ConfigrDataType.STRING, result.getSettingType("name"));
+        assertEquals("42", result.getString("name"));
+        assertTrue(result.getBoolean("debug"));
+        assertEquals(0, result.getInt("retries"));
+        assertEquals("kept", result.getString("extra"));
+        assertEquals(1, read.getSchemaErrors().size());
+        assertTrue(read.getSchemaErrors().get(0).startsWith("Setting port is String, not Integer"));
+
+        ConfigrSchema strict = schema();
+        strict.setStrict(true);
+        try {
+            new ConfigrReadContext(f, null, strict);
+            fail("Setting port is not an integer");
+        } catch (ConfigrBufferException e) {
+        }
+        file.set("port", 8080);
+        file.write(true);
+        strict.setAllowUnknown(false);
+        try {
+            read = new ConfigrReadContext(f, null, strict);
+            fail("Setting extra is not defined");
+        } catch (ConfigrBufferException e) {
+        }
+        strict.define("extra", ConfigrDataType.STRING);
+        read = new ConfigrReadContext(f, null, strict);
+        assertEquals(8080, read.getConfigrFile().getInt("port"));
+        assertTrue(read.getSchemaErrors().isEmpty());
+    }
+
+    /**
+     * Test of load method, of class ConfigrSchema, applied in class ConfigrImportContext.
+     */
+    @Test
+    public void testLoad() throws Exception {
+        System.out.println("load");
+        ConfigrSchema schema = ConfigrSchema.load(ConfigrImportContextTest.createFile("[First]\nport=Integer\nratio=DOUBLE\nhost=string\n[Second]\nport=Integer\nhost=string\n"));
+        assertEquals(ConfigrDataType.INTEGER, schema.getType("First", "port"));
+        assertEquals(ConfigrDataType.DOUBLE, schema.getType("First", "ratio"));
+        assertEquals(ConfigrDataType.STRING, schema.getType("Second", "host"));
+        assertNull(schema.getType("Second", "ratio"));
+        assertFalse(schema.hasUnscopedDefinitions());
+        try {
+            ConfigrSchema.load(ConfigrImportContextTest.createFile("port=Number\n"));
+            fail("Unknown data type");
+        } catch (ConfigrValidationException e) {
+        }
+
+        File f = ConfigrImportContextTest.createFile("[First]\nport=80\nratio=1\nhost=true\n[Second]\nport=high\n[Third]\nport=high\n");
+        schema.setAllowUnknown(false);
+        for (ConfigrImportMode mode : ConfigrImportMode.values()) {
+            ConfigrImportContext context = new ConfigrImportContext(f, "=", mode, null, schema);
+            ConfigrFile[] result = context.getImportedFiles();
+            assertEquals(3, result.length);
+            assertEquals(80, result[0].getInt("port"));
+            assertEquals(ConfigrDataType.DOUBLE, result[0].getSettingType("ratio"));
+            assertEquals("true", result[0].getString("host"));
+            assertEquals(ConfigrDataType.STRING, result[0].getSettingType("host"));
+            assertEquals(0, result[1].getInt("port"));
+            assertEquals("", result[1].getString("host"));
+            assertNull(result[1].getSettingType("ratio"));
+            assertEquals("high", result[2].getString("port"));
+            assertNull(result[2].getSettingType("host"));
+            assertEquals(1, context.getSchemaErrors().size());
+            assertTrue(context.getSchemaErrors().get(0).startsWith("[Second] Setting port"));
+        }
+        try {
+            new ConfigrImportContext(f, "=", ConfigrImportMode.STREAMED, null, schema());
+            fail("Schema is not scoped");
+        } catch (ConfigrValidationException e) {
+        }
+    }
+
+    /**
+     * Test of the schema in class ConfigrReadContext, applied to changes in the journal.
+     */
+    @Test
+    public void testReadJournaled() throws Exception {
+        System.out.println("readJournaled");
+        File f = File.createTempFile("configr", ".cfgr");
+        f.deleteOnExit();
+        ConfigrJournal.getJournalFile(f).deleteOnExit();
+        ConfigrFile file = new ConfigrFile("Test", f.getPath());
+        file.set("port", 80);
+        file.setJournaled(1 << 20);
+        file.set("port", "high");
+        file.set("ratio", 2);
+
+        ConfigrReadContext read = new ConfigrReadContext(f, null, schema());
+        ConfigrFile result = read.getConfigrFile();
+        assertEquals(0, result.getInt("port"));
+        assertEquals(ConfigrDataType.DOUBLE, result.getSettingType("ratio"));
+        assertEquals(1, read.getSchemaErrors().size());
+        assertTrue(read.getSchemaErrors().get(0).startsWith("Setting port is String, not Integer"));
+
+        ConfigrSchema scoped = new ConfigrSchema().define("Test", "port", ConfigrDataType.STRING);
+        assertEquals("high", new ConfigrReadContext(f, null, scoped).getConfigrFile().getString("port"));
+        ConfigrImportContext context = new ConfigrImportContext(f, "=", ConfigrImportMode.STREAMED, null, scoped);
+        assertEquals(ConfigrDataType.STRING, context.getSection("Test").getSettingType("port"));
+        file.close();
+    }
+}
@@ -0,0 +1,127 @@
+package org.noviv.junit;
+
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.exceptions.ConfigrValidationException;
+
+public class ConfigrSettingsMapTest {
+
+    /**
+     * Test of put method, of class ConfigrSettingsMap.
+     */
+    @Test
+    public void testPut() {
+        System.out.println("put");
+        ConfigrSettingsMap map = new ConfigrSettingsMap();
+        map.put("int", "42", ConfigrDataType.INTEGER);
+        map.put("double", "0.25", ConfigrDataType.DOUBLE);
+        map.put("bool", "true", ConfigrDataType.BOOLEAN);
+        map.put("string", "text", ConfigrDataType.STRING);
+        map.put("null", ConfigrDataType.NULL);
+        assertEquals(5, map.size());
+        assertEquals(42, map.getSetting("int"));
+        assertEquals(0.25, map.getSetting("double"));
+        assertEquals(true, map.getSetting("bool"));
+        assertEquals("text", map.getSetting("string"));
+        assertNull(map.getSetting("null"));
+        assertEquals(ConfigrDataType.NULL, map.getType("null"));
+        assertNull(map.getSetting("missing"));
+    }
+
+    /**
+     * Test of the typed getters, of class ConfigrSettingsMap.
+     */
+    @Test
+    public void testTypedGetters() {
+        System.out.println("typedGetters");
+        ConfigrSettingsMap map = new ConfigrSettingsMap();
+        map.putInt("int", -7);
+        map.putLong("long", 1L << 40);
+        map.putDouble("double", 1.5);
+        map.putBoolean("bool", true);
+        map.putString("string", "text");
+        assertEquals(-7, map.getInt("int"));
+        assertEquals(1L << 40, map.getLong("long"));
+        assertEquals(1L << 40, map.getSetting("long"));
+        assertEquals(-7.0, map.getDouble("int"), 0);
+        assertEquals(1.5, map.getDouble("double"), 0);
+        assertTrue(map.getBoolean("bool"));
+        assertEquals("text", map.getString("string"));
+        assertEquals("-7", map.getString("int"));
+        assertEquals(3, map.getInt("missing", 3));
+        assertFalse(map.getBoolean("missing", false));
+        map.putString("int", "replaced");
+        assertEquals(ConfigrDataType.STRING, map.getType("int"));
+        assertEquals(5, map.size());
+        try {
+            map.getInt("long");
+            fail("Expected out of range");
+        } catch (ConfigrValidationException e) {
+        }
+        try {
+            map.getBoolean("string");
+            fail("Expected type mismatch");
+        } catch (ConfigrValidationException e) {
+        }
+    }
+
+    /**
+     * Test of getSettings method, of class ConfigrSettingsMap.
+     */
+    @Test
+    public void testGetSettings() {
+        System.out.println("getSettings");
+        ConfigrSettingsMap map = new ConfigrSettingsMap();
+        for (int i = 0; i < 10000; i++) {
+            map.putInt("key" + i, i);
+        }
+        for (int i = 0; i < 10000; i += 2) {
+            map.putString("key" + i, "v" + i);
+        }
+        assertEquals(10000, map.size());
+        int index = 0;
+        for (String s : map.getSettings()) {
+            assertEquals("key" + index, s);
+            if (index % 2 == 0) {
+                assertEquals("v" + index, map.getString(s));
+            } else {
+                assertEquals(index, map.getInt(s));
+            }
+            index++;
+        }
+        assertEquals(10000, index);
+        assertTrue(map.getSettings().contains("key9999"));
+        assertFalse(map.getSettings().contains("key10000"));
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.getType("key1"));
+        map.putBoolean("key1", true);
+        assertEquals(1, map.getSettings().size());
+    }
+
+    /**
+     * Test of getChangedSettings method, of class ConfigrSettingsMap.
+     */
+    @Test
+    public void testGetChangedSettings() {
+        System.out.println("getChangedSettings");
+        ConfigrSettingsMap before = new ConfigrSettingsMap();
+        before.putInt("same", 1);
+        before.putInt("value", 2);
+        before.putInt("type", 3);
+        before.putString("removed", "x");
+        ConfigrSettingsMap after = before.copy();
+        assertTrue(after.getChangedSettings(before).isEmpty());
+        after.putInt("value", 5);
+        after.putString("type", "3");
+        after.putBoolean("added", true);
+        assertEquals(Arrays.asList("value", "type", "added"), after.getChangedSettings(before));
+        ConfigrSettingsMap other = new ConfigrSettingsMap();
+        other.putString("type", "3");
+        other.putInt("same", 1);
+        assertEquals(Arrays.asList("type", "value", "removed"), other.getChangedSettings(before));
+    }
+}
@@ -0,0 +1,83 @@
+package org.noviv.junit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.data.ConfigrConcurrentSettingsMap;
+import org.noviv.configr.data.ConfigrSettingsMap;
+import org.noviv.configr.data.ConfigrSubtree;
+
+public class ConfigrSubtreeTest {
+
+    /**
+     * Test of getSettings method, of class ConfigrSubtree.
+     */
+    @Test
+    public void testGetSettings() {
+        System.out.println("getSettings");
+        ConfigrSettingsMap map = new ConfigrSettingsMap();
+        map.putString("db.replica.a.host", "a.local");
+        map.putInt("db.replica.a.port", 5432);
+        map.putString("db.primary.host", "p.local");
+        map.putString("db.replica.b.host", "b.local");
+        map.putString("db.replicas", "not below db.replica");
+        map.putBoolean("debug", true);
+
+        ConfigrSubtree replicas = map.subtree("db.replica");
+        assertEquals(3, replicas.size());
+        assertEquals(Arrays.asList("db.replica.a.host", "db.replica.a.port", "db.replica.b.host"), new ArrayList<>(replicas.getSettings()));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), replicas.getChildren());
+        assertTrue(replicas.getSettings().contains("db.replica.b.host"));
+        assertFalse(replicas.getSettings().contains("db.replicas"));
+        assertEquals(5432, replicas.subtree("a").getInt("port"));
+        assertEquals("b.local", replicas.getString("b.host"));
+        assertEquals(3, map.subtree("db.replica.").size());
+        assertEquals(6, map.subtree("").size());
+        assertEquals(0, map.subtree("db.missing").size());
+
+        map.putString("db.replica.c.host", "c.local");
+        assertEquals(4, replicas.size());
+        assertTrue(replicas.getChildren().contains("c"));
+
+        ConfigrSubtree missing = map.subtree("cache");
+        assertEquals(0, missing.size());
+        map.putInt("cache.size", 10);
+        assertEquals(1, missing.size());
+
+        map.clear();
+        assertEquals(0, replicas.size());
+        map.putString("db.replica.z.host", "z.local");
+        assertEquals(Arrays.asList("z"), new ArrayList<>(replicas.getChildren()));
+    }
+
+    /**
+     * Test of subtree method, of class ConfigrFile.
+     */
+    @Test
+    public void testSubtree() {
+        System.out.println("subtree");
+        ConfigrFile file = new ConfigrFile("Test");
+        file.setConcurrent(true);
+        file.set("server.port", 80);
+        ConfigrSubtree server = file.subtree("server");
+        assertEquals(80, server.getInt("port"));
+        file.set("server.host", "localhost");
+        assertEquals(2, server.size());
+        ConfigrSettingsMap replaced = new ConfigrSettingsMap();
+        replaced.putInt("server.port", 443);
+        file.setAll(replaced);
+        assertEquals(1, server.size());
+        assertEquals(443, server.getInt("port"));
+
+        ConfigrConcurrentSettingsMap concurrent = new ConfigrConcurrentSettingsMap(4);
+        concurrent.putInt("a.b", 1);
+        concurrent.putInt("a.c", 2);
+        concurrent.putInt("d", 3);
+        ConfigrSubtree a = concurrent.subtree("a");
+        assertEquals(2, a.size());
+        assertEquals(2, a.getInt("c"));
+    }
+}
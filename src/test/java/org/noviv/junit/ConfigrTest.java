@@ -1,8 +1,15 @@
 package org.noviv.junit;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.noviv.configr.Configr;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.io.ConfigrImportContext;
+import org.noviv.configr.io.ConfigrImportMode;
+import org.noviv.configr.io.ConfigrJournal;
 
 public class ConfigrTest {
 
@@ -38,4 +45,59 @@ public class ConfigrTest {
         String result = Configr.getCheckHead();
         assertEquals(expResult, result);
     }
+
+    /**
+     * Test of getSetting method, of class Configr.
+     */
+    @Test
+    public void testGetSetting() throws Exception {
+        System.out.println("getSetting");
+        File f = ConfigrImportContextTest.createFile("[A]\nport=80\n[B]\nport=81\nhost=localhost\n");
+        long misses = Configr.getFileCache().getMisses();
+        assertEquals("80", Configr.getSetting(f.getPath(), "port"));
+        assertEquals("localhost", Configr.getSetting(f.getPath(), "host"));
+        assertNull(Configr.getSetting(f.getPath(), "missing"));
+        assertEquals(misses + 1, Configr.getFileCache().getMisses());
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write("[A]\nport=8080\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals("8080", Configr.getSetting(f.getPath(), "port"));
+        assertNull(Configr.getSetting(f.getPath(), "host"));
+        assertEquals(misses + 2, Configr.getFileCache().getMisses());
+    }
+
+    /**
+     * Test of getSetting method, of class Configr, with settings without a value.
+     */
+    @Test
+    public void testGetSettingWithoutValue() throws Exception {
+        System.out.println("getSettingWithoutValue");
+        File f = ConfigrImportContextTest.createFile("flag\n[A]\nport\nhost=\n[B]\nport=81\nhost=localhost\nflag=on\n");
+        assertEquals("81", Configr.getSetting(f.getPath(), "port"));
+        assertEquals("on", Configr.getSetting(f.getPath(), "flag"));
+        assertNull(Configr.getSetting(f.getPath(), "missing"));
+    }
+
+    /**
+     * Test of getSetting method, of class Configr, with changes in the journal.
+     */
+    @Test
+    public void testGetSettingJournaled() throws Exception {
+        System.out.println("getSettingJournaled");
+        File f = ConfigrImportContextTest.createFile("");
+        ConfigrJournal.getJournalFile(f).deleteOnExit();
+        ConfigrFile file = new ConfigrFile("Test", f.getPath());
+        file.set("port", 80);
+        file.setJournaled(1 << 20);
+        assertEquals("80", Configr.getSetting(f.getPath(), "port"));
+        file.set("port", 8080);
+        assertEquals("8080", Configr.getSetting(f.getPath(), "port"));
+        ConfigrImportContext context = new ConfigrImportContext(f, "=", ConfigrImportMode.MAPPED);
+        assertEquals(8080, context.getSection("Test").getInt("port"));
+        file.set("port", 8081);
+        context.refresh();
+        assertEquals(8081, context.getSection("Test").getInt("port"));
+        assertEquals(8081, new ConfigrImportContext(f, "=", ConfigrImportMode.LAZY).getSection("Test").getInt("port"));
+        file.close();
+    }
 }
@@ -0,0 +1,111 @@
+package org.noviv.junit;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.data.ConfigrDataType;
+import org.noviv.configr.io.ConfigrBufferTokenizer;
+import org.noviv.configr.io.ConfigrStreamTokenizer;
+import org.noviv.configr.io.ConfigrTokenizer;
+import org.noviv.configr.io.ConfigrTokenizer.Token;
+
+public class ConfigrTokenizerTest {
+
+    private static ConfigrTokenizer tokenize(String input) {
+        return new ConfigrStreamTokenizer(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Test of next method, of class ConfigrTokenizer.
+     */
+    @Test
+    public void testNext() throws Exception {
+        System.out.println("next");
+        ConfigrTokenizer t = tokenize("worked\r\n\r\n[Config 2]\nstring=10\nname=café");
+        assertEquals(Token.SETTING, t.next());
+        assertEquals("worked", t.getKey());
+        assertNull(t.getValue());
+        assertEquals(ConfigrDataType.NULL, t.getType());
+        assertEquals(Token.SECTION, t.next());
+        assertEquals("Config 2", t.getSectionName());
+        assertEquals(3, t.getLineNumber());
+        assertEquals(Token.SETTING, t.next());
+        assertEquals("string", t.getKey());
+        assertEquals("10", t.getValue());
+        assertEquals(Token.SETTING, t.next());
+        assertEquals("café", t.getValue());
+        assertEquals(Token.END, t.next());
+    }
+
+    /**
+     * Test of getType method, of class ConfigrTokenizer.
+     */
+    @Test
+    public void testGetType() throws Exception {
+        System.out.println("getType");
+        String[] values = {"true", "false", "-12", "3.25", "-0.5", "1.", ".5", "1e5", "abc", "", "untrue", "99999999999999999999",
+            "1.0E-7", "-1.2345678901234567E19", "2.5e+3", "1.0E", "1.0E-", "1.0Ex"};
+        ConfigrDataType[] types = {ConfigrDataType.BOOLEAN, ConfigrDataType.BOOLEAN, ConfigrDataType.INTEGER,
+            ConfigrDataType.DOUBLE, ConfigrDataType.DOUBLE, ConfigrDataType.STRING, ConfigrDataType.STRING,
+            ConfigrDataType.STRING, ConfigrDataType.STRING, ConfigrDataType.STRING,
+            ConfigrDataType.STRING, ConfigrDataType.STRING,
+            ConfigrDataType.DOUBLE, ConfigrDataType.DOUBLE, ConfigrDataType.DOUBLE, ConfigrDataType.STRING,
+            ConfigrDataType.STRING, ConfigrDataType.STRING};
+        StringBuilder input = new StringBuilder();
+        for (String v : values) {
+            input.append("k=").append(v).append('\n');
+        }
+        ConfigrTokenizer t = tokenize(input.toString());
+        for (ConfigrDataType type : types) {
+            assertEquals(Token.SETTING, t.next());
+            assertEquals(type, t.getType());
+        }
+        assertEquals(Token.END, t.next());
+    }
+
+    /**
+     * Test of getLineOffset method, of class ConfigrTokenizer.
+     */
+    @Test
+    public void testGetLineOffset() throws Exception {
+        System.out.println("getLineOffset");
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            input.append("key").append(i).append('=').append(i).append('\n');
+        }
+        ConfigrTokenizer t = tokenize(input.toString());
+        long offset = 0;
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(Token.SETTING, t.next());
+            assertEquals(offset, t.getLineOffset());
+            assertEquals("key" + i, t.getKey());
+            offset += ("key" + i + "=" + i + "\n").length();
+        }
+        assertEquals(Token.END, t.next());
+    }
+
+    /**
+     * Test of next method, of class ConfigrBufferTokenizer.
+     */
+    @Test
+    public void testBufferNext() throws Exception {
+        System.out.println("bufferNext");
+        byte[] bytes = "a=1\r\n[S]\r\nb=café\rc".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        ConfigrTokenizer t = new ConfigrBufferTokenizer(direct);
+        assertEquals(Token.SETTING, t.next());
+        assertEquals("a", t.getKey());
+        assertEquals(ConfigrDataType.INTEGER, t.getType());
+        assertEquals(Token.SECTION, t.next());
+        assertEquals("S", t.getSectionName());
+        assertEquals(Token.SETTING, t.next());
+        assertEquals("café", t.getValue());
+        assertEquals(Token.SETTING, t.next());
+        assertEquals("c", t.getKey());
+        assertEquals(ConfigrDataType.NULL, t.getType());
+        assertEquals(Token.END, t.next());
+    }
+}
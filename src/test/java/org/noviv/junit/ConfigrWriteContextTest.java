@@ -0,0 +1,89 @@
+package org.noviv.junit;
+
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.noviv.configr.ConfigrFile;
+import org.noviv.configr.exceptions.ConfigrBufferException;
+import org.noviv.configr.exceptions.ConfigrIOException;
+import org.noviv.configr.io.ConfigrReadContext;
+import org.noviv.configr.io.ConfigrWriteContext;
+
+public class ConfigrWriteContextTest {
+
+    private static int tempFiles(File dir) {
+        int count = 0;
+        for (String name : dir.list()) {
+            if (name.endsWith(".tmp")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Test of flush method, of class ConfigrWriteContext.
+     */
+    @Test
+    public void testFlush() throws Exception {
+        System.out.println("flush");
+        File dir = Files.createTempDirectory("configr").toFile();
+        File f = new File(dir, "test.cfgr");
+        try (ConfigrWriteContext write = new ConfigrWriteContext(f)) {
+            write.head("Test");
+            for (int i = 0; i < 100000; i++) {
+                write.buffer("key" + i, "value é " + i);
+            }
+            assertEquals(1, tempFiles(dir));
+            assertFalse(f.exists());
+            write.flush(new ConfigrFile("Test", f.getPath()));
+            assertEquals(f.length(), write.getBytesWritten());
+            try {
+                write.buffer("late", "value");
+                fail("Buffer should be flushed");
+            } catch (ConfigrBufferException e) {
+            }
+        }
+        assertEquals(0, tempFiles(dir));
+        ConfigrFile read = new ConfigrReadContext(f).getConfigrFile();
+        assertEquals(100000, read.getSettings().size());
+        assertEquals("value é 99999", read.getString("key99999"));
+
+        ConfigrFile file = new ConfigrFile("Test", f.getPath());
+        ConfigrWriteContext write = new ConfigrWriteContext();
+        write.head("Test");
+        write.buffer("first", "1");
+        write.reset();
+        write.head("Test");
+        write.buffer("second", "2");
+        write.flush(file);
+        read = new ConfigrReadContext(f).getConfigrFile();
+        assertEquals(1, read.getSettings().size());
+        assertEquals(2, read.getInt("second"));
+        assertEquals(0, tempFiles(dir));
+    }
+
+    /**
+     * Test of flush method, of class ConfigrWriteContext, when the target cannot be written.
+     */
+    @Test
+    public void testFlushFailure() throws Exception {
+        System.out.println("flushFailure");
+        File dir = Files.createTempDirectory("configr").toFile();
+        File f = new File(new File(dir, "missing"), "test.cfgr");
+        try {
+            new ConfigrWriteContext(f);
+            fail("Directory does not exist");
+        } catch (ConfigrIOException e) {
+        }
+
+        ConfigrWriteContext write = new ConfigrWriteContext();
+        write.head("Test");
+        try {
+            write.flush(new ConfigrFile("Test", f.getPath()));
+            fail("Directory does not exist");
+        } catch (ConfigrIOException e) {
+        }
+    }
+}